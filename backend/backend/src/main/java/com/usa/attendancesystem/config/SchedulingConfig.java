@@ -0,0 +1,12 @@
+package com.usa.attendancesystem.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the @Scheduled background workers (SMS outbox dispatcher, etc.).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -20,6 +20,7 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import com.usa.attendancesystem.config.security.JwtAuthFilter;
 import com.usa.attendancesystem.service.UserDetailsServiceImpl;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 
 @Configuration
@@ -38,8 +39,12 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource))
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
+                // Async dispatches (e.g. live attendance streams) were already authorized on the original request
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 // Public endpoints
-                .requestMatchers("/auth/**", "/attendance/mark", "/attendance/mark-by-index").permitAll()
+                .requestMatchers("/auth/**", "/attendance/mark", "/attendance/mark-by-index", "/attendance/mark-by-index/bulk").permitAll()
+                // SMS provider webhooks, authenticated by their signature instead
+                .requestMatchers("/sms/status").permitAll()
                 // Protected admin endpoints - note: Spring Security removes ROLE_ prefix
                 .requestMatchers("/admin/**").hasAnyAuthority("ROLE_SUPER_ADMIN", "ROLE_STAFF")
                 // All other requests must be authenticated
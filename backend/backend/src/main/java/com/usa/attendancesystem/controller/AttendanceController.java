@@ -4,6 +4,8 @@ import java.time.LocalDate;
 import java.util.List;
 
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -13,10 +15,16 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.usa.attendancesystem.dto.*;
+import com.usa.attendancesystem.service.AttendanceExportService;
+import com.usa.attendancesystem.service.AttendanceMatrixService;
 import com.usa.attendancesystem.service.AttendanceService;
+import com.usa.attendancesystem.service.AttendanceSummaryService;
 import com.usa.attendancesystem.service.AttendanceSessionService;
+import com.usa.attendancesystem.service.AttendanceStreamService;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -29,6 +37,10 @@ public class AttendanceController {
 
     private final AttendanceService attendanceService;
     private final AttendanceSessionService sessionService;
+    private final AttendanceStreamService attendanceStreamService;
+    private final AttendanceMatrixService attendanceMatrixService;
+    private final AttendanceSummaryService attendanceSummaryService;
+    private final AttendanceExportService attendanceExportService;
 
     // ============ SESSION MANAGEMENT ENDPOINTS (ADMIN) ============
     /**
@@ -78,6 +90,27 @@ public class AttendanceController {
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * ADMIN endpoint to switch write-behind marking on or off for a session.
+     */
+    @PutMapping("/admin/attendance/sessions/{sessionId}/write-behind")
+    public ResponseEntity<AttendanceSessionDto> setWriteBehind(
+            @PathVariable Long sessionId,
+            @RequestParam boolean enabled) {
+        AttendanceSessionDto session = sessionService.setWriteBehind(sessionId, enabled);
+        return ResponseEntity.ok(session);
+    }
+
+    /**
+     * ADMIN endpoint streaming live check-ins for a session (Server-Sent
+     * Events). Sends a "snapshot" event first, then a "check-in" event per
+     * accepted mark.
+     */
+    @GetMapping(value = "/admin/attendance/sessions/{sessionId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSessionAttendance(@PathVariable Long sessionId) {
+        return attendanceStreamService.subscribe(sessionId);
+    }
+
     // ============ ATTENDANCE MARKING ENDPOINTS ============
     /**
      * PUBLIC endpoint for marking attendance by index number in a session. No
@@ -89,6 +122,18 @@ public class AttendanceController {
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * PUBLIC endpoint for kiosks replaying check-ins buffered while offline. No
+     * authentication required. Returns a status per item instead of failing
+     * the whole batch.
+     */
+    @PostMapping("/attendance/mark-by-index/bulk")
+    public ResponseEntity<BulkAttendanceMarkResultDto> markAttendanceByIndexBulk(
+            @Valid @RequestBody BulkAttendanceMarkRequest request) {
+        BulkAttendanceMarkResultDto result = attendanceService.markAttendanceBulk(request.items());
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * PUBLIC endpoint for the student check-in kiosk. No authentication is
      * required. (Legacy method - kept for backward compatibility)
@@ -111,4 +156,107 @@ public class AttendanceController {
         AttendanceReportDto report = attendanceService.getAttendanceReport(date, batchId, subjectId);
         return ResponseEntity.ok(report);
     }
+
+    /**
+     * ADMIN endpoint streaming the students x dates attendance matrix for a
+     * batch and subject over a date range, with per-student percentages.
+     * format is json (default) or csv.
+     */
+    @GetMapping("/admin/attendance/matrix")
+    public ResponseEntity<StreamingResponseBody> getAttendanceMatrix(
+            @RequestParam Integer batchId,
+            @RequestParam Integer subjectId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "json") String format) {
+        AttendanceMatrixService.Format matrixFormat = AttendanceMatrixService.Format.from(format);
+        attendanceMatrixService.validateRequest(batchId, subjectId, from, to);
+
+        HttpHeaders headers = new HttpHeaders();
+        if (matrixFormat == AttendanceMatrixService.Format.CSV) {
+            headers.setContentType(MediaType.parseMediaType("text/csv"));
+            headers.setContentDispositionFormData("attachment",
+                    "attendance-matrix-" + batchId + "-" + subjectId + "-" + from + "-" + to + ".csv");
+        } else {
+            headers.setContentType(MediaType.APPLICATION_JSON);
+        }
+
+        StreamingResponseBody body = out -> attendanceMatrixService.writeMatrix(
+                batchId, subjectId, from, to, matrixFormat, out);
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
+    }
+
+    /**
+     * ADMIN endpoint for attendance trends: daily present/enrolled counts for a
+     * batch over a date range, for one subject or all subjects.
+     */
+    @GetMapping("/admin/attendance/summary")
+    public ResponseEntity<List<AttendanceDailySummaryDto>> getAttendanceSummary(
+            @RequestParam Integer batchId,
+            @RequestParam(required = false) Integer subjectId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        List<AttendanceDailySummaryDto> summary = attendanceSummaryService.getSummary(batchId, subjectId, from, to);
+        return ResponseEntity.ok(summary);
+    }
+
+    /**
+     * ADMIN endpoint for dashboard tiles: today's counts for every batch and
+     * subject.
+     */
+    @GetMapping("/admin/attendance/summary/today")
+    public ResponseEntity<List<AttendanceDailySummaryDto>> getTodaysAttendanceSummary() {
+        List<AttendanceDailySummaryDto> summary = attendanceSummaryService.getTodaysSummary();
+        return ResponseEntity.ok(summary);
+    }
+
+    /**
+     * ADMIN endpoint downloading the daily report (present and absent students)
+     * as a file. format is xlsx (default) or csv.
+     */
+    @GetMapping("/admin/attendance/report/export")
+    public ResponseEntity<StreamingResponseBody> exportAttendanceReport(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam Integer batchId,
+            @RequestParam Integer subjectId,
+            @RequestParam(defaultValue = "xlsx") String format) {
+        AttendanceExportService.Format exportFormat = AttendanceExportService.Format.from(format);
+        attendanceExportService.validateDailyReport(batchId, subjectId);
+
+        StreamingResponseBody body = out -> attendanceExportService.exportDailyReport(
+                date, batchId, subjectId, exportFormat, out);
+        return ResponseEntity.ok()
+                .headers(exportHeaders(exportFormat, "attendance-report-" + batchId + "-" + subjectId + "-" + date))
+                .body(body);
+    }
+
+    /**
+     * ADMIN endpoint downloading every mark in a date range (up to a year),
+     * optionally for one batch and/or subject. format is xlsx (default) or csv.
+     */
+    @GetMapping("/admin/attendance/export")
+    public ResponseEntity<StreamingResponseBody> exportAttendanceRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer batchId,
+            @RequestParam(required = false) Integer subjectId,
+            @RequestParam(defaultValue = "xlsx") String format) {
+        AttendanceExportService.Format exportFormat = AttendanceExportService.Format.from(format);
+        attendanceExportService.validateRange(from, to, batchId, subjectId);
+
+        StreamingResponseBody body = out -> attendanceExportService.exportRange(
+                from, to, batchId, subjectId, exportFormat, out);
+        return ResponseEntity.ok()
+                .headers(exportHeaders(exportFormat, "attendance-" + from + "-to-" + to))
+                .body(body);
+    }
+
+    private HttpHeaders exportHeaders(AttendanceExportService.Format format, String baseName) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(format.contentType()));
+        headers.setContentDispositionFormData("attachment", baseName + "." + format.extension());
+        return headers;
+    }
 }
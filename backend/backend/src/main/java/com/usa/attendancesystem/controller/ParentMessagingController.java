@@ -1,16 +1,21 @@
 package com.usa.attendancesystem.controller;
 
+import com.usa.attendancesystem.dto.BroadcastJobDto;
 import com.usa.attendancesystem.dto.BroadcastMessageRequest;
 import com.usa.attendancesystem.service.ParentMessagingService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Map;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/admin/messaging")
@@ -20,9 +25,14 @@ public class ParentMessagingController {
     private final ParentMessagingService parentMessagingService;
 
     @PostMapping("/broadcast")
-    public ResponseEntity<Void> sendBroadcast(@Valid @RequestBody BroadcastMessageRequest request) {
-        parentMessagingService.sendBroadcastMessage(request);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<BroadcastJobDto> sendBroadcast(@Valid @RequestBody BroadcastMessageRequest request) {
+        BroadcastJobDto job = parentMessagingService.sendBroadcastMessage(request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    @GetMapping("/broadcast/{jobId}")
+    public ResponseEntity<BroadcastJobDto> getBroadcastJob(@PathVariable UUID jobId) {
+        return ResponseEntity.ok(parentMessagingService.getBroadcastJob(jobId));
     }
 
     @PostMapping("/fee-reminders")
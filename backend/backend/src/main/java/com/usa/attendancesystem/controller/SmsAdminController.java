@@ -0,0 +1,61 @@
+package com.usa.attendancesystem.controller;
+
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.usa.attendancesystem.dto.SmsDeadLetterPageDto;
+import com.usa.attendancesystem.dto.SmsMessagePageDto;
+import com.usa.attendancesystem.dto.SmsReplayRequest;
+import com.usa.attendancesystem.service.SmsOutboxService;
+import com.usa.attendancesystem.service.SmsStatusService;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Inspection and replay of SMS that could not be delivered, and the delivery
+ * status of those that were sent.
+ */
+@RestController
+@RequestMapping("/admin/sms")
+@RequiredArgsConstructor
+public class SmsAdminController {
+
+    private final SmsOutboxService smsOutboxService;
+    private final SmsStatusService smsStatusService;
+
+    @GetMapping("/dead-letters")
+    public ResponseEntity<SmsDeadLetterPageDto> getDeadLetters(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(smsOutboxService.getDeadLetters(page, size));
+    }
+
+    @PostMapping("/dead-letters/replay")
+    public ResponseEntity<Map<String, Integer>> replayDeadLetters(@Valid @RequestBody SmsReplayRequest request) {
+        int replayed = smsOutboxService.replayDeadLetters(request.ids());
+        return ResponseEntity.ok(Map.of("replayed", replayed));
+    }
+
+    @PostMapping("/dead-letters/replay-all")
+    public ResponseEntity<Map<String, Integer>> replayAllDeadLetters() {
+        int replayed = smsOutboxService.replayAllDeadLetters();
+        return ResponseEntity.ok(Map.of("replayed", replayed));
+    }
+
+    @GetMapping("/messages")
+    public ResponseEntity<SmsMessagePageDto> getMessagesForStudent(
+            @RequestParam UUID studentId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(smsStatusService.getMessagesForStudent(studentId, page, size));
+    }
+}
@@ -0,0 +1,42 @@
+package com.usa.attendancesystem.controller;
+
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.usa.attendancesystem.service.SmsStatusService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Delivery status webhooks from the SMS provider. Public, but every callback
+ * must be signed with the provider account's auth token. Callbacks are only
+ * buffered here and written in batches, so the provider is answered at once.
+ */
+@RestController
+@RequestMapping("/sms")
+@RequiredArgsConstructor
+public class SmsStatusCallbackController {
+
+    private final SmsStatusService smsStatusService;
+
+    @PostMapping(path = "/status", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public ResponseEntity<Void> receiveStatus(
+            @RequestParam Map<String, String> params,
+            @RequestHeader(name = "X-Twilio-Signature", required = false) String signature) {
+        if (!smsStatusService.isAuthentic(params, signature)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!smsStatusService.ingestCallback(params)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
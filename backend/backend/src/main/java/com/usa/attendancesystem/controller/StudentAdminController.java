@@ -1,12 +1,16 @@
 package com.usa.attendancesystem.controller;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.UUID;
 
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -20,10 +24,15 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.usa.attendancesystem.dto.CreateStudentRequest;
-import com.usa.attendancesystem.dto.CsvImportResultDto;
+import com.usa.attendancesystem.dto.StudentCursorPageDto;
 import com.usa.attendancesystem.dto.StudentDto;
+import com.usa.attendancesystem.dto.StudentImportJobDto;
+import com.usa.attendancesystem.dto.StudentPageDto;
 import com.usa.attendancesystem.dto.UpdateStudentRequest;
+import com.usa.attendancesystem.model.StudentImportMode;
+import com.usa.attendancesystem.model.StudentSortKey;
 import com.usa.attendancesystem.service.CsvImportService;
+import com.usa.attendancesystem.service.StudentImportJobService;
 import com.usa.attendancesystem.service.StudentService;
 
 import jakarta.validation.Valid;
@@ -36,6 +45,7 @@ public class StudentAdminController {
 
     private final StudentService studentService;
     private final CsvImportService csvImportService;
+    private final StudentImportJobService studentImportJobService;
 
     @PostMapping
     public ResponseEntity<StudentDto> createStudent(@Valid @RequestBody CreateStudentRequest request) {
@@ -67,6 +77,21 @@ public class StudentAdminController {
         return ResponseEntity.ok(students);
     }
 
+    /**
+     * Lists students a page at a time. Pass the returned nextCursor as
+     * {@code after} to get the following page.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<StudentCursorPageDto> getStudentPage(
+            @RequestParam(required = false) Integer batchId,
+            @RequestParam(required = false) Integer subjectId,
+            @RequestParam(defaultValue = "true") Boolean active,
+            @RequestParam(defaultValue = "STUDENT_ID_CODE") StudentSortKey sort,
+            @RequestParam(defaultValue = "100") int size,
+            @RequestParam(required = false) String after) {
+        return ResponseEntity.ok(studentService.getStudentPage(batchId, subjectId, active, sort, size, after));
+    }
+
     @GetMapping("/{studentId}")
     public ResponseEntity<StudentDto> getStudentById(@PathVariable UUID studentId) {
         StudentDto student = studentService.getStudentById(studentId);
@@ -87,22 +112,109 @@ public class StudentAdminController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Imports a CSV or Excel file as a background job, exactly like POST
+     * /import-jobs: the job is returned straight away and its result is
+     * polled from GET /import-jobs/{jobId}. With dryRun=true the file is only
+     * validated and checked for duplicates; nothing is written.
+     */
     @PostMapping("/import-csv")
-    public ResponseEntity<CsvImportResultDto> importStudentsFromCsv(
-            @RequestParam("file") MultipartFile file) {
+    public ResponseEntity<StudentImportJobDto> importStudentsFromCsv(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "false") boolean dryRun,
+            Authentication auth) {
+        return startImportJob(file, dryRun, auth);
+    }
+
+    /**
+     * Starts a background import and returns its job straight away. Poll
+     * GET /import-jobs/{jobId} for progress and the final result. With
+     * dryRun=true the job only validates the file and checks for duplicates.
+     */
+    @PostMapping("/import-jobs")
+    public ResponseEntity<StudentImportJobDto> startImportJob(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "false") boolean dryRun,
+            Authentication auth) {
+
+        validateImportFile(file);
+
+        StudentImportJobDto job = studentImportJobService.submit(file, importMode(dryRun), auth != null ? auth.getName() : null);
+        return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+    }
 
+    /**
+     * Starts a background bulk load for initial migrations of very large
+     * files. Rows are validated and de-duplicated exactly like a normal
+     * import, then loaded with PostgreSQL COPY. Poll it like any import job.
+     */
+    @PostMapping("/bulk-load-jobs")
+    public ResponseEntity<StudentImportJobDto> startBulkLoadJob(
+            @RequestParam("file") MultipartFile file,
+            Authentication auth) {
+
+        validateImportFile(file);
+
+        StudentImportJobDto job = studentImportJobService.submit(file, StudentImportMode.BULK_LOAD, auth != null ? auth.getName() : null);
+        return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/import-jobs/{jobId}")
+    public ResponseEntity<StudentImportJobDto> getImportJob(
+            @PathVariable UUID jobId,
+            @RequestParam(defaultValue = "false") boolean countsOnly) {
+        return ResponseEntity.ok(studentImportJobService.getJob(jobId, countsOnly));
+    }
+
+    /**
+     * Pages through the students an import job created. page is zero-based;
+     * size is at most 500.
+     */
+    @GetMapping("/import-jobs/{jobId}/students")
+    public ResponseEntity<StudentPageDto> getImportedStudents(
+            @PathVariable UUID jobId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(studentImportJobService.getImportedStudents(jobId, page, size));
+    }
+
+    /**
+     * Downloads the rejected rows of a finished import, or of a dry run, as
+     * CSV (Row, Column, Reason). The file is streamed from disk.
+     */
+    @GetMapping("/import-jobs/{jobId}/error-report")
+    public ResponseEntity<Resource> downloadImportErrorReport(@PathVariable UUID jobId) {
+        Path report = studentImportJobService.getErrorReport(jobId);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+        headers.setContentDispositionFormData("attachment", "student-import-errors-" + jobId + ".csv");
+
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(new FileSystemResource(report));
+    }
+
+    @PostMapping("/import-jobs/{jobId}/cancel")
+    public ResponseEntity<StudentImportJobDto> cancelImportJob(@PathVariable UUID jobId) {
+        return ResponseEntity.ok(studentImportJobService.cancel(jobId));
+    }
+
+    private StudentImportMode importMode(boolean dryRun) {
+        return dryRun ? StudentImportMode.DRY_RUN : StudentImportMode.STANDARD;
+    }
+
+    private void validateImportFile(MultipartFile file) {
         // Validate file
         if (file.isEmpty()) {
             throw new IllegalArgumentException("Please select a file to upload");
         }
 
         String fileName = file.getOriginalFilename();
-        if (fileName == null || !fileName.toLowerCase().endsWith(".csv")) {
-            throw new IllegalArgumentException("Please upload a CSV file");
+        String lowerCaseName = fileName == null ? "" : fileName.toLowerCase();
+        if (!lowerCaseName.endsWith(".csv") && !lowerCaseName.endsWith(".xlsx") && !lowerCaseName.endsWith(".xls")) {
+            throw new IllegalArgumentException("Please upload a CSV or Excel file");
         }
-
-        CsvImportResultDto result = csvImportService.importStudentsFromCsv(file);
-        return ResponseEntity.ok(result);
     }
 
     @GetMapping("/csv-template")
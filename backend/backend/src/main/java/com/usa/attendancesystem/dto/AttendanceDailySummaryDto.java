@@ -0,0 +1,18 @@
+package com.usa.attendancesystem.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Attendance counts for one batch and subject on one day, for dashboards and
+ * trend charts. attendanceRate is a percentage rounded to one decimal place.
+ */
+public record AttendanceDailySummaryDto(
+        LocalDate date,
+        Integer batchId,
+        Integer subjectId,
+        int presentCount,
+        int enrolledCount,
+        double attendanceRate
+        ) {
+
+}
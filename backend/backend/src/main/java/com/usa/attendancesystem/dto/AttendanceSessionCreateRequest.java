@@ -12,7 +12,8 @@ public record AttendanceSessionCreateRequest(
         @NotNull(message = "Subject ID is required")
         Integer subjectId,
         @NotNull(message = "Session date is required")
-        LocalDate sessionDate
+        LocalDate sessionDate,
+        Boolean writeBehind // Optional: buffer check-ins in memory for very large sessions
         ) {
 
 }
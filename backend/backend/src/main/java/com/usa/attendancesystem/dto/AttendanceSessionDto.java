@@ -14,7 +14,8 @@ public record AttendanceSessionDto(
         String subjectName,
         LocalDate sessionDate,
         boolean isActive,
-        Instant createdAt
+        Instant createdAt,
+        boolean writeBehind
         ) {
 
 }
@@ -0,0 +1,17 @@
+package com.usa.attendancesystem.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Live attendance stream event sent for each new check-in.
+ */
+public record AttendanceStreamCheckInDto(
+        Long sessionId,
+        UUID studentId,
+        String fullName,
+        Instant checkInTime,
+        int presentCount
+        ) {
+
+}
@@ -0,0 +1,15 @@
+package com.usa.attendancesystem.dto;
+
+import java.util.List;
+
+/**
+ * First event on a live attendance stream: who is already present.
+ */
+public record AttendanceStreamSnapshotDto(
+        Long sessionId,
+        int enrolledCount,
+        int presentCount,
+        List<PresentStudentDto> presentStudents
+        ) {
+
+}
@@ -0,0 +1,25 @@
+package com.usa.attendancesystem.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import com.usa.attendancesystem.model.BroadcastJobStatus;
+
+/**
+ * Progress of a broadcast. Counters are live while it runs; sent + failed +
+ * queuedForRetry reaches totalMessages when it completes. Messages queued for
+ * retry are delivered by the SMS outbox afterwards; failed ones were
+ * dead-lettered.
+ */
+public record BroadcastJobDto(
+        UUID id,
+        BroadcastJobStatus status,
+        int totalMessages,
+        int sent,
+        int failed,
+        int queuedForRetry,
+        Instant createdAt,
+        Instant finishedAt
+        ) {
+
+}
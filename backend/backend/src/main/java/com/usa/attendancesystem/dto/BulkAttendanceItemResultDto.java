@@ -0,0 +1,13 @@
+package com.usa.attendancesystem.dto;
+
+/**
+ * Per-item result of a bulk check-in, matched to the request by idempotency key.
+ */
+public record BulkAttendanceItemResultDto(
+        String idempotencyKey,
+        Long sessionId,
+        String indexNumber,
+        BulkAttendanceItemStatus status
+        ) {
+
+}
@@ -0,0 +1,12 @@
+package com.usa.attendancesystem.dto;
+
+/**
+ * Outcome of a single check-in within a bulk attendance request.
+ */
+public enum BulkAttendanceItemStatus {
+    OK,
+    DUPLICATE,
+    NOT_ENROLLED,
+    UNKNOWN_INDEX,
+    SESSION_NOT_FOUND
+}
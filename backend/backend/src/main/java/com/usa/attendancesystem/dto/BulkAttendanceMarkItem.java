@@ -0,0 +1,21 @@
+package com.usa.attendancesystem.dto;
+
+import java.time.Instant;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * A single check-in buffered by a kiosk while it was offline.
+ */
+public record BulkAttendanceMarkItem(
+        @NotNull(message = "Session ID is required")
+        Long sessionId,
+        @NotBlank(message = "Index number is required")
+        String indexNumber,
+        Instant clientTimestamp, // Optional: when the student actually tapped in
+        @NotBlank(message = "Idempotency key is required")
+        String idempotencyKey
+        ) {
+
+}
@@ -0,0 +1,19 @@
+package com.usa.attendancesystem.dto;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+/**
+ * DTO for replaying a kiosk's offline check-in queue in one request.
+ */
+public record BulkAttendanceMarkRequest(
+        @NotEmpty(message = "At least one check-in is required")
+        @Size(max = 2000, message = "At most 2000 check-ins can be sent per request")
+        List<@Valid @NotNull BulkAttendanceMarkItem> items
+        ) {
+
+}
@@ -0,0 +1,15 @@
+package com.usa.attendancesystem.dto;
+
+import java.util.List;
+
+/**
+ * DTO for bulk check-in results, in the same order as the request items.
+ */
+public record BulkAttendanceMarkResultDto(
+        int accepted,
+        int duplicates,
+        int rejected,
+        List<BulkAttendanceItemResultDto> results
+        ) {
+
+}
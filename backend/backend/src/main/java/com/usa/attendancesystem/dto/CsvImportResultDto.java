@@ -3,7 +3,9 @@ package com.usa.attendancesystem.dto;
 import java.util.List;
 
 /**
- * DTO for CSV import operation results.
+ * DTO for CSV import operation results. errors holds at most the first
+ * student.import.max-reported-errors problems; the job's error report has all
+ * of them. importedStudents is only filled when the caller asks for it.
  */
 public record CsvImportResultDto(
         int totalRows,
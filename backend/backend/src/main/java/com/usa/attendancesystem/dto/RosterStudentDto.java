@@ -0,0 +1,16 @@
+package com.usa.attendancesystem.dto;
+
+import java.util.UUID;
+
+/**
+ * Compact projection of a student eligible for an attendance session. Holds
+ * only what the kiosk check-in needs, so marking never loads Student entities.
+ */
+public record RosterStudentDto(
+        UUID id,
+        String indexNumber,
+        String fullName,
+        String parentPhone
+        ) {
+
+}
@@ -0,0 +1,19 @@
+package com.usa.attendancesystem.dto;
+
+import java.time.Instant;
+
+/**
+ * An SMS that was given up on. outboxId is null when the message failed
+ * outside the outbox, e.g. during a broadcast.
+ */
+public record SmsDeadLetterDto(
+        Long id,
+        Long outboxId,
+        String destination,
+        String message,
+        int attempts,
+        String lastError,
+        Instant failedAt
+        ) {
+
+}
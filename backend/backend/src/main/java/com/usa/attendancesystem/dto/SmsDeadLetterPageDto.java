@@ -0,0 +1,16 @@
+package com.usa.attendancesystem.dto;
+
+import java.util.List;
+
+/**
+ * One page of dead letters. page is zero-based.
+ */
+public record SmsDeadLetterPageDto(
+        List<SmsDeadLetterDto> content,
+        int page,
+        int size,
+        long totalElements,
+        int totalPages
+        ) {
+
+}
@@ -0,0 +1,24 @@
+package com.usa.attendancesystem.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import com.usa.attendancesystem.model.SmsDeliveryStatus;
+import com.usa.attendancesystem.model.SmsMessageType;
+
+/**
+ * A sent SMS and its latest delivery status. errorCode is the provider's
+ * code for failed and undelivered messages.
+ */
+public record SmsMessageDto(
+        String messageSid,
+        String destination,
+        UUID studentId,
+        SmsMessageType messageType,
+        SmsDeliveryStatus status,
+        String errorCode,
+        Instant createdAt,
+        Instant statusUpdatedAt
+        ) {
+
+}
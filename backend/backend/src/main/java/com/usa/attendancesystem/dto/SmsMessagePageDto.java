@@ -0,0 +1,16 @@
+package com.usa.attendancesystem.dto;
+
+import java.util.List;
+
+/**
+ * One page of sent messages. page is zero-based.
+ */
+public record SmsMessagePageDto(
+        List<SmsMessageDto> content,
+        int page,
+        int size,
+        long totalElements,
+        int totalPages
+        ) {
+
+}
@@ -0,0 +1,14 @@
+package com.usa.attendancesystem.dto;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+
+/**
+ * Dead letters to queue for delivery again.
+ */
+public record SmsReplayRequest(
+        @NotEmpty List<Long> ids
+        ) {
+
+}
@@ -0,0 +1,15 @@
+package com.usa.attendancesystem.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated student listing. nextCursor is passed back
+ * to fetch the following page and is null on the last one.
+ */
+public record StudentCursorPageDto(
+        List<StudentDto> content,
+        int size,
+        String nextCursor
+        ) {
+
+}
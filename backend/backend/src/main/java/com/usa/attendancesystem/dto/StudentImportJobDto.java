@@ -0,0 +1,29 @@
+package com.usa.attendancesystem.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import com.usa.attendancesystem.model.StudentImportJobStatus;
+import com.usa.attendancesystem.model.StudentImportMode;
+
+/**
+ * Status of a background student import. Counters are live while the job
+ * runs; result is only set once it has finished. For a dry run, rowsImported
+ * counts the rows that would have been imported.
+ */
+public record StudentImportJobDto(
+        UUID id,
+        String fileName,
+        StudentImportMode mode,
+        StudentImportJobStatus status,
+        int rowsParsed,
+        int rowsImported,
+        int rowsFailed,
+        String errorMessage,
+        Instant createdAt,
+        Instant startedAt,
+        Instant finishedAt,
+        CsvImportResultDto result
+        ) {
+
+}
@@ -0,0 +1,16 @@
+package com.usa.attendancesystem.dto;
+
+import java.util.List;
+
+/**
+ * One page of students. page is zero-based.
+ */
+public record StudentPageDto(
+        List<StudentDto> content,
+        int page,
+        int size,
+        long totalElements,
+        int totalPages
+        ) {
+
+}
@@ -0,0 +1,24 @@
+package com.usa.attendancesystem.dto;
+
+import java.util.UUID;
+
+/**
+ * Flat projection of a student joined with its batch and one of its subjects.
+ * A query returns one row per (student, subject) pair, which is folded into
+ * {@link StudentDto}s without loading any entity collections.
+ */
+public record StudentSubjectRowDto(
+        UUID id,
+        String studentIdCode,
+        String indexNumber,
+        String fullName,
+        String parentPhone,
+        String studentPhone,
+        boolean isActive,
+        Integer batchId,
+        int batchYear,
+        Integer subjectId,
+        String subjectName
+        ) {
+
+}
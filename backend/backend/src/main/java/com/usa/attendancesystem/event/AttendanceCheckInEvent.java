@@ -0,0 +1,17 @@
+package com.usa.attendancesystem.event;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Published by the mark path for every accepted session check-in. Listeners
+ * bound to the transaction only see it once the mark has been committed.
+ */
+public record AttendanceCheckInEvent(
+        Long sessionId,
+        UUID studentId,
+        String fullName,
+        Instant checkInTime
+        ) {
+
+}
@@ -0,0 +1,20 @@
+package com.usa.attendancesystem.exception;
+
+/**
+ * Thrown by an SmsService when the provider did not accept a message.
+ * Retryable failures (throttling, provider outages, network errors) may
+ * succeed later; others, such as an invalid number, never will.
+ */
+public class SmsDeliveryException extends RuntimeException {
+
+    private final boolean retryable;
+
+    public SmsDeliveryException(String message, boolean retryable, Throwable cause) {
+        super(message, cause);
+        this.retryable = retryable;
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
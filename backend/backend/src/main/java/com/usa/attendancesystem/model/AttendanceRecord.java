@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import java.time.Instant;
+import java.time.LocalDate;
 
 @Data
 @NoArgsConstructor
@@ -25,4 +26,7 @@ public class AttendanceRecord {
 
     @Column(name = "attendance_timestamp", nullable = false)
     private Instant attendanceTimestamp;
+
+    @Column(name = "attendance_date", nullable = false)
+    private LocalDate attendanceDate;
 }
\ No newline at end of file
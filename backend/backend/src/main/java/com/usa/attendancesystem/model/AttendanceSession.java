@@ -35,6 +35,9 @@ public class AttendanceSession {
     @Column(name = "is_active", nullable = false)
     private boolean isActive = true;
 
+    @Column(name = "write_behind", nullable = false)
+    private boolean writeBehind = false;
+
     @Column(name = "created_at", nullable = false)
     private Instant createdAt = Instant.now();
 
@@ -0,0 +1,7 @@
+package com.usa.attendancesystem.model;
+
+public enum BroadcastJobStatus {
+    RUNNING,
+    COMPLETED,
+    INTERRUPTED
+}
@@ -0,0 +1,58 @@
+package com.usa.attendancesystem.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "sms_dead_letters")
+public class SmsDeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "outbox_id")
+    private Long outboxId;
+
+    @Column(nullable = false, length = 20)
+    private String destination;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "message_type", length = 20)
+    private SmsMessageType messageType;
+
+    @Column(name = "student_id")
+    private UUID studentId;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "failed_at", nullable = false)
+    private Instant failedAt = Instant.now();
+
+    @Column(name = "replayed_at")
+    private Instant replayedAt;
+
+    public SmsDeadLetter(Long outboxId, String destination, String message, SmsMessageType messageType, UUID studentId,
+            int attempts, String lastError) {
+        this.outboxId = outboxId;
+        this.destination = destination;
+        this.message = message;
+        this.messageType = messageType;
+        this.studentId = studentId;
+        this.attempts = attempts;
+        this.lastError = lastError;
+    }
+}
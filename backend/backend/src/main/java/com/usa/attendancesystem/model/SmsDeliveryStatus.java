@@ -0,0 +1,41 @@
+package com.usa.attendancesystem.model;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Delivery status of a sent SMS as reported by the provider, in the order a
+ * message moves through them. Status callbacks can arrive out of order, so a
+ * status only replaces one that comes earlier in this list.
+ */
+public enum SmsDeliveryStatus {
+    ACCEPTED,
+    SCHEDULED,
+    QUEUED,
+    SENDING,
+    SENT,
+    CANCELED,
+    UNDELIVERED,
+    FAILED,
+    DELIVERED,
+    READ;
+
+    public int rank() {
+        return ordinal();
+    }
+
+    /**
+     * Parses a provider status such as "delivered". Statuses of inbound
+     * messages and unknown ones are empty.
+     */
+    public static Optional<SmsDeliveryStatus> fromProvider(String status) {
+        if (status == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(valueOf(status.trim().toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.usa.attendancesystem.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * An SMS accepted by the provider and its latest known delivery status.
+ * Written only through {@link com.usa.attendancesystem.repository.SmsMessageJdbcRepository}.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "sms_messages")
+public class SmsMessage {
+
+    @Id
+    @Column(name = "message_sid", length = 64)
+    private String messageSid;
+
+    @Column(nullable = false, length = 20)
+    private String destination;
+
+    @Column(name = "student_id")
+    private UUID studentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "message_type", length = 20)
+    private SmsMessageType messageType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private SmsDeliveryStatus status;
+
+    @Column(name = "error_code", length = 10)
+    private String errorCode;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "status_updated_at", nullable = false)
+    private Instant statusUpdatedAt;
+}
@@ -0,0 +1,9 @@
+package com.usa.attendancesystem.model;
+
+public enum SmsMessageType {
+    ATTENDANCE,
+    FEE_REMINDER,
+    BROADCAST,
+    // Messages of different types merged into one text for the same phone
+    COMBINED
+}
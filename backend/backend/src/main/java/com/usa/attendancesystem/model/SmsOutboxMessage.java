@@ -0,0 +1,75 @@
+package com.usa.attendancesystem.model;
+
+import com.usa.attendancesystem.util.PhoneNumbers;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "sms_outbox")
+public class SmsOutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 20)
+    private String destination;
+
+    // Normalized destination, only for finding messages to the same phone; never sent to
+    @Column(name = "destination_key", length = 20)
+    private String destinationKey;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private SmsOutboxStatus status = SmsOutboxStatus.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt = Instant.now();
+
+    @Column(name = "available_at", nullable = false)
+    private Instant availableAt = Instant.now();
+
+    @Column(name = "claimed_at")
+    private Instant claimedAt;
+
+    @Column(name = "sent_at")
+    private Instant sentAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "message_type", length = 20)
+    private SmsMessageType messageType;
+
+    // The student the message is about, if any
+    @Column(name = "student_id")
+    private UUID studentId;
+
+    public SmsOutboxMessage(String destination, String message) {
+        this.destination = destination;
+        this.destinationKey = PhoneNumbers.normalize(destination);
+        this.message = message;
+    }
+
+    public SmsOutboxMessage(String destination, String message, SmsMessageType messageType, UUID studentId) {
+        this.destination = destination;
+        this.destinationKey = PhoneNumbers.normalize(destination);
+        this.message = message;
+        this.messageType = messageType;
+        this.studentId = studentId;
+    }
+}
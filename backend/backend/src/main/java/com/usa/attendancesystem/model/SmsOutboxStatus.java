@@ -0,0 +1,8 @@
+package com.usa.attendancesystem.model;
+
+public enum SmsOutboxStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    FAILED
+}
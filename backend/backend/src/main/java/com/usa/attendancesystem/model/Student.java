@@ -38,6 +38,12 @@ public class Student {
     @Builder.Default
     private boolean isActive = true;
 
+    /**
+     * The import job that created this student, if it was imported.
+     */
+    @Column(name = "import_job_id")
+    private UUID importJobId;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "batch_id", nullable = false)
     private Batch batch;
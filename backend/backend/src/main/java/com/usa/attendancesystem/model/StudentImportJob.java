@@ -0,0 +1,78 @@
+package com.usa.attendancesystem.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "student_import_jobs")
+public class StudentImportJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StudentImportMode mode = StudentImportMode.STANDARD;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StudentImportJobStatus status = StudentImportJobStatus.QUEUED;
+
+    @Column(name = "rows_parsed", nullable = false)
+    private int rowsParsed;
+
+    @Column(name = "rows_imported", nullable = false)
+    private int rowsImported;
+
+    @Column(name = "rows_failed", nullable = false)
+    private int rowsFailed;
+
+    @Column(columnDefinition = "TEXT")
+    private String result;
+
+    @Column(name = "error_message", length = 500)
+    private String errorMessage;
+
+    @Column(name = "created_by", length = 50)
+    private String createdBy;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt = Instant.now();
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    // The server running the job, and when it last reported the job alive
+    @Column(name = "owner_instance", length = 100)
+    private String ownerInstance;
+
+    @Column(name = "heartbeat_at")
+    private Instant heartbeatAt;
+
+    public StudentImportJob(String fileName, StudentImportMode mode, String createdBy, String ownerInstance) {
+        this.fileName = fileName;
+        this.mode = mode;
+        this.createdBy = createdBy;
+        this.ownerInstance = ownerInstance;
+        this.heartbeatAt = this.createdAt;
+    }
+
+    public boolean isFinished() {
+        return status == StudentImportJobStatus.COMPLETED
+                || status == StudentImportJobStatus.CANCELLED
+                || status == StudentImportJobStatus.FAILED;
+    }
+}
@@ -0,0 +1,9 @@
+package com.usa.attendancesystem.model;
+
+public enum StudentImportJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    CANCELLED,
+    FAILED
+}
@@ -0,0 +1,21 @@
+package com.usa.attendancesystem.model;
+
+/**
+ * How an import job writes the rows that pass validation. Every mode applies
+ * the same validation, duplicate checks and STU/IDX code allocation.
+ */
+public enum StudentImportMode {
+    /**
+     * Inserts each chunk with JDBC batches.
+     */
+    STANDARD,
+    /**
+     * Writes nothing; only reports what an import would do.
+     */
+    DRY_RUN,
+    /**
+     * Streams each chunk into staging tables with PostgreSQL COPY and merges
+     * it from there. For initial loads of very large files.
+     */
+    BULK_LOAD
+}
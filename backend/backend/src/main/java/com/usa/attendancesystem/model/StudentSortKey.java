@@ -0,0 +1,11 @@
+package com.usa.attendancesystem.model;
+
+/**
+ * The orders in which students can be listed. Ties are broken by student id,
+ * so every order is total and can be paged through with a cursor.
+ */
+public enum StudentSortKey {
+    STUDENT_ID_CODE,
+    INDEX_NUMBER,
+    FULL_NAME
+}
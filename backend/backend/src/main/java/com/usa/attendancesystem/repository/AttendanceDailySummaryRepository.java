@@ -0,0 +1,186 @@
+package com.usa.attendancesystem.repository;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.usa.attendancesystem.dto.AttendanceDailySummaryDto;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Reads and maintains attendance_daily_summary, one row of counts per
+ * (date, batch, subject). Writes join the caller's transaction so the counts
+ * commit together with the marks they describe.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AttendanceDailySummaryRepository {
+
+    private static final String ENROLLED_COUNT_SQL
+            = "(SELECT COUNT(*) FROM students e JOIN student_subjects es ON es.student_id = e.id "
+            + "WHERE e.batch_id = %1$s.batch_id AND es.subject_id = %1$s.subject_id AND e.is_active = TRUE)";
+
+    /**
+     * Adds newly recorded marks to their day's counts. The batch is taken from
+     * the student, and the enrolled count from the caller when it knows it
+     * (a session roster) or else counted once per group.
+     */
+    private static final String RECORD_CHECK_INS_SQL
+            = "INSERT INTO attendance_daily_summary (summary_date, batch_id, subject_id, present_count, enrolled_count, updated_at) "
+            + "SELECT g.attendance_date, g.batch_id, g.subject_id, g.present_count, "
+            + "COALESCE(g.enrolled_count, " + String.format(ENROLLED_COUNT_SQL, "g") + "), NOW() "
+            + "FROM (SELECT m.attendance_date, s.batch_id, m.subject_id, COUNT(*) AS present_count, MAX(m.enrolled_count) AS enrolled_count "
+            + "FROM unnest(?::uuid[], ?::int[], ?::date[], ?::int[]) AS m(student_id, subject_id, attendance_date, enrolled_count) "
+            + "JOIN students s ON s.id = m.student_id "
+            + "GROUP BY m.attendance_date, s.batch_id, m.subject_id) g "
+            + "ON CONFLICT (summary_date, batch_id, subject_id) DO UPDATE "
+            + "SET present_count = attendance_daily_summary.present_count + EXCLUDED.present_count, "
+            + "enrolled_count = EXCLUDED.enrolled_count, updated_at = NOW()";
+
+    private static final String SEED_DAY_SQL
+            = "INSERT INTO attendance_daily_summary (summary_date, batch_id, subject_id, present_count, enrolled_count, updated_at) "
+            + "SELECT k.summary_date, k.batch_id, k.subject_id, 0, " + String.format(ENROLLED_COUNT_SQL, "k") + ", NOW() "
+            + "FROM (SELECT ?::date AS summary_date, ?::int AS batch_id, ?::int AS subject_id) k "
+            + "ON CONFLICT (summary_date, batch_id, subject_id) DO NOTHING";
+
+    /**
+     * Recomputes present counts for a date range from attendance_records and
+     * rewrites only the rows that drifted. Missing days (a session or marks
+     * with no summary row) are inserted with today's enrolment.
+     */
+    private static final String RECONCILE_SQL
+            = "INSERT INTO attendance_daily_summary (summary_date, batch_id, subject_id, present_count, enrolled_count, updated_at) "
+            + "SELECT k.summary_date, k.batch_id, k.subject_id, COALESCE(p.present_count, 0), "
+            + String.format(ENROLLED_COUNT_SQL, "k") + ", NOW() "
+            + "FROM (SELECT session_date AS summary_date, batch_id, subject_id FROM attendance_sessions "
+            + "WHERE session_date BETWEEN ? AND ? "
+            + "UNION "
+            + "SELECT ar.attendance_date, s.batch_id, ar.subject_id FROM attendance_records ar "
+            + "JOIN students s ON s.id = ar.student_id WHERE ar.attendance_date BETWEEN ? AND ?) k "
+            + "LEFT JOIN (SELECT ar.attendance_date, s.batch_id, ar.subject_id, COUNT(*) AS present_count "
+            + "FROM attendance_records ar JOIN students s ON s.id = ar.student_id "
+            + "WHERE ar.attendance_date BETWEEN ? AND ? "
+            + "GROUP BY ar.attendance_date, s.batch_id, ar.subject_id) p "
+            + "ON p.attendance_date = k.summary_date AND p.batch_id = k.batch_id AND p.subject_id = k.subject_id "
+            + "ON CONFLICT (summary_date, batch_id, subject_id) DO UPDATE "
+            + "SET present_count = EXCLUDED.present_count, updated_at = NOW() "
+            + "WHERE attendance_daily_summary.present_count <> EXCLUDED.present_count";
+
+    private static final String RESET_ORPHANED_SQL
+            = "UPDATE attendance_daily_summary d SET present_count = 0, updated_at = NOW() "
+            + "WHERE d.summary_date BETWEEN ? AND ? AND d.present_count <> 0 "
+            + "AND NOT EXISTS (SELECT 1 FROM attendance_records ar JOIN students s ON s.id = ar.student_id "
+            + "WHERE ar.attendance_date = d.summary_date AND ar.subject_id = d.subject_id AND s.batch_id = d.batch_id)";
+
+    private static final String SELECT_COLUMNS
+            = "SELECT summary_date, batch_id, subject_id, present_count, enrolled_count FROM attendance_daily_summary ";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * A newly recorded mark. enrolledCount may be null when the caller has no
+     * roster at hand.
+     */
+    public record RecordedCheckIn(
+            UUID studentId,
+            Integer subjectId,
+            LocalDate attendanceDate,
+            Integer enrolledCount
+            ) {
+
+    }
+
+    /**
+     * Increments the present counts for the given marks with a single
+     * statement, however many days and subjects they span.
+     */
+    public void recordCheckIns(List<RecordedCheckIn> checkIns) {
+        if (checkIns.isEmpty()) {
+            return;
+        }
+        UUID[] studentIds = new UUID[checkIns.size()];
+        Integer[] subjectIds = new Integer[checkIns.size()];
+        Date[] dates = new Date[checkIns.size()];
+        Integer[] enrolledCounts = new Integer[checkIns.size()];
+        for (int i = 0; i < checkIns.size(); i++) {
+            RecordedCheckIn checkIn = checkIns.get(i);
+            studentIds[i] = checkIn.studentId();
+            subjectIds[i] = checkIn.subjectId();
+            dates[i] = Date.valueOf(checkIn.attendanceDate());
+            enrolledCounts[i] = checkIn.enrolledCount();
+        }
+
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(RECORD_CHECK_INS_SQL);
+            ps.setArray(1, array(connection, "uuid", studentIds));
+            ps.setArray(2, array(connection, "int4", subjectIds));
+            ps.setArray(3, array(connection, "date", dates));
+            ps.setArray(4, array(connection, "int4", enrolledCounts));
+            return ps;
+        });
+    }
+
+    /**
+     * Creates a zero-count row for a day so sessions without any check-ins
+     * still show up on dashboards. Does nothing if the row exists.
+     */
+    public void seedDay(LocalDate date, Integer batchId, Integer subjectId) {
+        jdbcTemplate.update(SEED_DAY_SQL, date, batchId, subjectId);
+    }
+
+    /**
+     * @return the number of summary rows that were corrected or added
+     */
+    public int reconcile(LocalDate from, LocalDate to) {
+        int upserted = jdbcTemplate.update(RECONCILE_SQL, from, to, from, to, from, to);
+        int reset = jdbcTemplate.update(RESET_ORPHANED_SQL, from, to);
+        return upserted + reset;
+    }
+
+    public List<AttendanceDailySummaryDto> findByBatchAndSubject(Integer batchId, Integer subjectId,
+            LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(SELECT_COLUMNS
+                + "WHERE batch_id = ? AND subject_id = ? AND summary_date BETWEEN ? AND ? ORDER BY summary_date",
+                (rs, rowNum) -> mapRow(rs), batchId, subjectId, from, to);
+    }
+
+    public List<AttendanceDailySummaryDto> findByBatch(Integer batchId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(SELECT_COLUMNS
+                + "WHERE batch_id = ? AND summary_date BETWEEN ? AND ? ORDER BY summary_date, subject_id",
+                (rs, rowNum) -> mapRow(rs), batchId, from, to);
+    }
+
+    public List<AttendanceDailySummaryDto> findByDate(LocalDate date) {
+        return jdbcTemplate.query(SELECT_COLUMNS
+                + "WHERE summary_date = ? ORDER BY batch_id, subject_id",
+                (rs, rowNum) -> mapRow(rs), date);
+    }
+
+    private static Array array(Connection connection, String type, Object[] values) throws SQLException {
+        return connection.createArrayOf(type, values);
+    }
+
+    private static AttendanceDailySummaryDto mapRow(ResultSet rs) throws SQLException {
+        int present = rs.getInt("present_count");
+        int enrolled = rs.getInt("enrolled_count");
+        double rate = enrolled == 0 ? 0.0 : Math.round(present * 1000.0 / enrolled) / 10.0;
+        return new AttendanceDailySummaryDto(
+                rs.getObject("summary_date", LocalDate.class),
+                rs.getInt("batch_id"),
+                rs.getInt("subject_id"),
+                present,
+                enrolled,
+                rate
+        );
+    }
+}
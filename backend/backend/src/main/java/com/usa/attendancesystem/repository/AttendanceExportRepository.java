@@ -0,0 +1,83 @@
+package com.usa.attendancesystem.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.LocalDate;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Cursor queries feeding the attendance exports. Both stream rows to a
+ * handler instead of returning lists, and must run inside a transaction so
+ * the PostgreSQL driver honours the fetch size.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AttendanceExportRepository {
+
+    /**
+     * Every active student of the batch enrolled in the subject, with their
+     * check-in time that day or null if absent. Present students first, in
+     * check-in order.
+     */
+    private static final String DAILY_REPORT_SQL
+            = "SELECT s.student_id_code, s.index_number, s.full_name, s.parent_phone, ar.attendance_timestamp "
+            + "FROM students s "
+            + "JOIN student_subjects ss ON ss.student_id = s.id AND ss.subject_id = ? "
+            + "LEFT JOIN attendance_records ar ON ar.student_id = s.id AND ar.subject_id = ss.subject_id "
+            + "AND ar.attendance_date = ? "
+            + "WHERE s.batch_id = ? AND s.is_active = TRUE "
+            + "ORDER BY ar.attendance_timestamp NULLS LAST, s.student_id_code";
+
+    /**
+     * Every mark in a date range, optionally narrowed to a batch and/or
+     * subject. A null parameter matches everything.
+     */
+    private static final String RANGE_SQL
+            = "SELECT ar.attendance_date, ar.attendance_timestamp, b.batch_year, sub.name AS subject_name, "
+            + "s.student_id_code, s.index_number, s.full_name "
+            + "FROM attendance_records ar "
+            + "JOIN students s ON s.id = ar.student_id "
+            + "JOIN batches b ON b.id = s.batch_id "
+            + "JOIN subjects sub ON sub.id = ar.subject_id "
+            + "WHERE ar.attendance_date BETWEEN ? AND ? "
+            + "AND (?::int IS NULL OR s.batch_id = ?::int) "
+            + "AND (?::int IS NULL OR ar.subject_id = ?::int) "
+            + "ORDER BY ar.attendance_date, b.batch_year, sub.name, ar.attendance_timestamp";
+
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void streamDailyReport(LocalDate date, Integer batchId, Integer subjectId, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(DAILY_REPORT_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            ps.setInt(1, subjectId);
+            ps.setObject(2, date);
+            ps.setInt(3, batchId);
+            return ps;
+        }, handler);
+    }
+
+    public void streamRange(LocalDate from, LocalDate to, Integer batchId, Integer subjectId, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(RANGE_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            ps.setObject(1, from);
+            ps.setObject(2, to);
+            ps.setObject(3, batchId, Types.INTEGER);
+            ps.setObject(4, batchId, Types.INTEGER);
+            ps.setObject(5, subjectId, Types.INTEGER);
+            ps.setObject(6, subjectId, Types.INTEGER);
+            return ps;
+        }, handler);
+    }
+}
@@ -0,0 +1,76 @@
+package com.usa.attendancesystem.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Range queries behind the attendance matrix report. Rows are streamed
+ * through a cursor so a term's worth of marks never sits in memory at once.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AttendanceMatrixRepository {
+
+    /**
+     * Matrix columns: every day a session was opened, plus any day marks were
+     * taken without one (legacy kiosk marks).
+     */
+    private static final String COLUMN_DATES_SQL
+            = "SELECT session_date AS column_date FROM attendance_sessions "
+            + "WHERE batch_id = ? AND subject_id = ? AND session_date BETWEEN ? AND ? "
+            + "UNION "
+            + "SELECT ar.attendance_date FROM attendance_records ar JOIN students s ON s.id = ar.student_id "
+            + "WHERE s.batch_id = ? AND ar.subject_id = ? AND ar.attendance_date BETWEEN ? AND ? "
+            + "ORDER BY column_date";
+
+    /**
+     * One row per (enrolled student, attended day), or a single row with a
+     * null date for a student with no marks. Ordered so each student's rows
+     * are contiguous.
+     */
+    private static final String STUDENT_MARKS_SQL
+            = "SELECT s.id, s.student_id_code, s.index_number, s.full_name, ar.attendance_date "
+            + "FROM students s "
+            + "JOIN student_subjects ss ON ss.student_id = s.id AND ss.subject_id = ? "
+            + "LEFT JOIN attendance_records ar ON ar.student_id = s.id AND ar.subject_id = ss.subject_id "
+            + "AND ar.attendance_date BETWEEN ? AND ? "
+            + "WHERE s.batch_id = ? AND s.is_active = TRUE "
+            + "ORDER BY s.student_id_code, s.id";
+
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<LocalDate> findColumnDates(Integer batchId, Integer subjectId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(COLUMN_DATES_SQL,
+                (rs, rowNum) -> rs.getObject(1, LocalDate.class),
+                batchId, subjectId, from, to, batchId, subjectId, from, to);
+    }
+
+    /**
+     * Streams the marks of the batch's active students for the subject to the
+     * handler. Must run inside a transaction: the PostgreSQL driver only
+     * honours the fetch size with auto-commit off.
+     */
+    public void streamStudentMarks(Integer batchId, Integer subjectId, LocalDate from, LocalDate to,
+            RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(STUDENT_MARKS_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            ps.setInt(1, subjectId);
+            ps.setObject(2, from);
+            ps.setObject(3, to);
+            ps.setInt(4, batchId);
+            return ps;
+        }, handler);
+    }
+}
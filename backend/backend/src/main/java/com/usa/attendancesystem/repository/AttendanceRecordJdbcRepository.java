@@ -0,0 +1,66 @@
+package com.usa.attendancesystem.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * JDBC batch writes for attendance records. Runs inside the caller's JPA
+ * transaction, since both share the same DataSource connection.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AttendanceRecordJdbcRepository {
+
+    private static final String INSERT_IF_ABSENT_SQL
+            = "INSERT INTO attendance_records (student_id, subject_id, attendance_timestamp, attendance_date) "
+            + "VALUES (?, ?, ?, ?) ON CONFLICT (student_id, subject_id, attendance_date) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record NewAttendanceRecord(
+            UUID studentId,
+            Integer subjectId,
+            Instant attendanceTimestamp,
+            LocalDate attendanceDate
+            ) {
+
+    }
+
+    /**
+     * Inserts all records in a single JDBC batch, skipping any that would
+     * duplicate an existing (student, subject, date) mark.
+     *
+     * @return per-record row counts in input order: 1 if inserted, 0 if duplicate
+     */
+    public int[] insertAllIfAbsent(List<NewAttendanceRecord> records) {
+        if (records.isEmpty()) {
+            return new int[0];
+        }
+        return jdbcTemplate.batchUpdate(INSERT_IF_ABSENT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                NewAttendanceRecord record = records.get(i);
+                ps.setObject(1, record.studentId());
+                ps.setInt(2, record.subjectId());
+                ps.setTimestamp(3, Timestamp.from(record.attendanceTimestamp()));
+                ps.setObject(4, record.attendanceDate());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return records.size();
+            }
+        });
+    }
+}
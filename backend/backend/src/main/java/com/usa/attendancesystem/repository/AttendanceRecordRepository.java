@@ -1,39 +1,75 @@
 package com.usa.attendancesystem.repository;
 
 import java.time.Instant;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.usa.attendancesystem.dto.PresentStudentDto;
 import com.usa.attendancesystem.model.AttendanceRecord;
 
 @Repository
 public interface AttendanceRecordRepository extends JpaRepository<AttendanceRecord, Long> {
 
     /**
-     * Finds all attendance records for a given subject within a specific time range (e.g., a single day).
-     * This is crucial for generating daily reports.
+     * Projects the students marked present for a subject on a day, in check-in
+     * order. This is the present half of the daily report, built in one query.
      */
-    @Query("SELECT ar FROM AttendanceRecord ar WHERE ar.subject.id = :subjectId AND ar.attendanceTimestamp >= :startOfDay AND ar.attendanceTimestamp < :endOfDay")
-    List<AttendanceRecord> findBySubjectAndDateRange(
+    @Query("SELECT new com.usa.attendancesystem.dto.PresentStudentDto(s.id, s.studentIdCode, s.fullName, ar.attendanceTimestamp) "
+            + "FROM AttendanceRecord ar JOIN ar.student s "
+            + "WHERE ar.subject.id = :subjectId AND ar.attendanceDate = :attendanceDate "
+            + "ORDER BY ar.attendanceTimestamp")
+    List<PresentStudentDto> findPresentStudentsBySubjectAndDate(
             @Param("subjectId") Integer subjectId,
-            @Param("startOfDay") Instant startOfDay,
-            @Param("endOfDay") Instant endOfDay
+            @Param("attendanceDate") LocalDate attendanceDate
     );
 
     /**
-     * Checks if a student has already marked attendance for a specific subject on a given day.
-     * This prevents duplicate check-ins.
+     * Projects the students of a batch marked present for a subject on a day,
+     * in check-in order. Used for the live attendance stream snapshot.
      */
-    @Query("SELECT COUNT(ar) > 0 FROM AttendanceRecord ar WHERE ar.student.id = :studentId AND ar.subject.id = :subjectId AND ar.attendanceTimestamp >= :startOfDay AND ar.attendanceTimestamp < :endOfDay")
-    boolean hasStudentMarkedAttendanceToday(
+    @Query("SELECT new com.usa.attendancesystem.dto.PresentStudentDto(s.id, s.studentIdCode, s.fullName, ar.attendanceTimestamp) "
+            + "FROM AttendanceRecord ar JOIN ar.student s "
+            + "WHERE s.batch.id = :batchId AND ar.subject.id = :subjectId AND ar.attendanceDate = :attendanceDate "
+            + "ORDER BY ar.attendanceTimestamp")
+    List<PresentStudentDto> findPresentStudentsByBatchSubjectAndDate(
+            @Param("batchId") Integer batchId,
+            @Param("subjectId") Integer subjectId,
+            @Param("attendanceDate") LocalDate attendanceDate
+    );
+
+    /**
+     * Lists the students already marked present for a subject on a day. Seeds
+     * the duplicate check of the write-behind buffer.
+     */
+    @Query("SELECT ar.student.id FROM AttendanceRecord ar WHERE ar.subject.id = :subjectId AND ar.attendanceDate = :attendanceDate")
+    List<UUID> findStudentIdsBySubjectAndDate(
+            @Param("subjectId") Integer subjectId,
+            @Param("attendanceDate") LocalDate attendanceDate
+    );
+
+    /**
+     * Records an attendance mark unless the student already has one for the
+     * subject on that day. Backed by the unique index on (student_id,
+     * subject_id, attendance_date), so it needs a single round trip and stays
+     * correct when two kiosk taps race each other.
+     *
+     * @return 1 if the mark was recorded, 0 if it was a duplicate
+     */
+    @Modifying
+    @Query(value = "INSERT INTO attendance_records (student_id, subject_id, attendance_timestamp, attendance_date) "
+            + "VALUES (:studentId, :subjectId, :attendanceTimestamp, :attendanceDate) "
+            + "ON CONFLICT (student_id, subject_id, attendance_date) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(
             @Param("studentId") UUID studentId,
             @Param("subjectId") Integer subjectId,
-            @Param("startOfDay") Instant startOfDay,
-            @Param("endOfDay") Instant endOfDay
+            @Param("attendanceTimestamp") Instant attendanceTimestamp,
+            @Param("attendanceDate") LocalDate attendanceDate
     );
 }
\ No newline at end of file
@@ -27,4 +27,7 @@ public interface AttendanceSessionRepository extends JpaRepository<AttendanceSes
 
     @Query("SELECT s FROM AttendanceSession s WHERE s.id = :sessionId AND s.isActive = true")
     Optional<AttendanceSession> findActiveSessionById(@Param("sessionId") Long sessionId);
+
+    @Query("SELECT s FROM AttendanceSession s JOIN FETCH s.batch JOIN FETCH s.subject WHERE s.id = :sessionId AND s.isActive = true")
+    Optional<AttendanceSession> findActiveSessionWithBatchAndSubject(@Param("sessionId") Long sessionId);
 }
@@ -0,0 +1,53 @@
+package com.usa.attendancesystem.repository;
+
+import java.util.Collection;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.usa.attendancesystem.model.SmsDeadLetter;
+
+@Repository
+public interface SmsDeadLetterRepository extends JpaRepository<SmsDeadLetter, Long> {
+
+    /**
+     * Dead letters not replayed yet, newest first.
+     */
+    @Query(value = "SELECT d FROM SmsDeadLetter d WHERE d.replayedAt IS NULL ORDER BY d.failedAt DESC, d.id DESC",
+            countQuery = "SELECT COUNT(d) FROM SmsDeadLetter d WHERE d.replayedAt IS NULL")
+    Page<SmsDeadLetter> findOpen(Pageable pageable);
+
+    /**
+     * Queues the given dead letters in the outbox again, with their message
+     * type and student and a fresh attempt count, and marks them replayed. One statement, so a letter is never
+     * queued twice or marked without being queued. Letters already replayed
+     * are skipped.
+     *
+     * @return the number of messages queued
+     */
+    @Modifying
+    @Query(value = "WITH replayed AS ("
+            + "UPDATE sms_dead_letters SET replayed_at = NOW() WHERE id IN (:ids) AND replayed_at IS NULL "
+            + "RETURNING destination, message, message_type, student_id) "
+            + "INSERT INTO sms_outbox (destination, message, message_type, student_id) "
+            + "SELECT destination, message, message_type, student_id FROM replayed",
+            nativeQuery = true)
+    int replay(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Like {@link #replay}, for every dead letter not replayed yet.
+     */
+    @Modifying
+    @Query(value = "WITH replayed AS ("
+            + "UPDATE sms_dead_letters SET replayed_at = NOW() WHERE replayed_at IS NULL "
+            + "RETURNING destination, message, message_type, student_id) "
+            + "INSERT INTO sms_outbox (destination, message, message_type, student_id) "
+            + "SELECT destination, message, message_type, student_id FROM replayed",
+            nativeQuery = true)
+    int replayAll();
+}
@@ -0,0 +1,92 @@
+package com.usa.attendancesystem.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.usa.attendancesystem.model.SmsDeliveryStatus;
+import com.usa.attendancesystem.model.SmsMessageType;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Batched writes to the SMS message store. Send results and status callbacks
+ * go through the same upsert, so they can be applied in any order: a row is
+ * created by whichever comes first, the status only moves forward, and the
+ * destination, student and type recorded at send time are kept.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SmsMessageJdbcRepository {
+
+    private static final String UPSERT_SQL
+            = "INSERT INTO sms_messages (message_sid, destination, student_id, message_type, status, status_rank, error_code, "
+            + "created_at, status_updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (message_sid) DO UPDATE SET "
+            // The send result knows the destination as it was queued; a callback has the provider's format
+            + "destination = CASE WHEN EXCLUDED.message_type IS NOT NULL THEN EXCLUDED.destination ELSE sms_messages.destination END, "
+            + "student_id = COALESCE(sms_messages.student_id, EXCLUDED.student_id), "
+            + "message_type = COALESCE(sms_messages.message_type, EXCLUDED.message_type), "
+            + "status = CASE WHEN EXCLUDED.status_rank > sms_messages.status_rank THEN EXCLUDED.status ELSE sms_messages.status END, "
+            + "error_code = CASE WHEN EXCLUDED.status_rank > sms_messages.status_rank "
+            + "THEN EXCLUDED.error_code ELSE sms_messages.error_code END, "
+            + "status_updated_at = CASE WHEN EXCLUDED.status_rank > sms_messages.status_rank "
+            + "THEN EXCLUDED.status_updated_at ELSE sms_messages.status_updated_at END, "
+            + "status_rank = GREATEST(sms_messages.status_rank, EXCLUDED.status_rank), "
+            + "created_at = LEAST(sms_messages.created_at, EXCLUDED.created_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * What is known about a message at one point: from the send (with student
+     * and type) or from a status callback (without them).
+     */
+    public record StatusUpdate(
+            String messageSid,
+            String destination,
+            UUID studentId,
+            SmsMessageType messageType,
+            SmsDeliveryStatus status,
+            String errorCode,
+            Instant createdAt,
+            Instant statusUpdatedAt) {
+
+    }
+
+    /**
+     * Applies the updates as one JDBC batch. A message SID must appear at most
+     * once; merge updates for the same message first.
+     */
+    public void upsertAll(List<StatusUpdate> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                StatusUpdate update = updates.get(i);
+                ps.setString(1, update.messageSid());
+                ps.setString(2, update.destination());
+                ps.setObject(3, update.studentId());
+                ps.setString(4, update.messageType() != null ? update.messageType().name() : null);
+                ps.setString(5, update.status().name());
+                ps.setShort(6, (short) update.status().rank());
+                ps.setString(7, update.errorCode());
+                ps.setTimestamp(8, Timestamp.from(update.createdAt()));
+                ps.setTimestamp(9, Timestamp.from(update.statusUpdatedAt()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return updates.size();
+            }
+        });
+    }
+}
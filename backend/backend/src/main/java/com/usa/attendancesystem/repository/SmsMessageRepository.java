@@ -0,0 +1,23 @@
+package com.usa.attendancesystem.repository;
+
+import java.util.UUID;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.usa.attendancesystem.model.SmsMessage;
+
+@Repository
+public interface SmsMessageRepository extends JpaRepository<SmsMessage, String> {
+
+    /**
+     * Messages about one student, newest first.
+     */
+    @Query(value = "SELECT m FROM SmsMessage m WHERE m.studentId = :studentId ORDER BY m.createdAt DESC",
+            countQuery = "SELECT COUNT(m) FROM SmsMessage m WHERE m.studentId = :studentId")
+    Page<SmsMessage> findByStudent(@Param("studentId") UUID studentId, Pageable pageable);
+}
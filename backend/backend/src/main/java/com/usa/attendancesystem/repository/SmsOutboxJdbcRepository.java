@@ -0,0 +1,55 @@
+package com.usa.attendancesystem.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.usa.attendancesystem.model.SmsOutboxMessage;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * JDBC batch inserts into the SMS outbox, for paths that queue many
+ * messages in one transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SmsOutboxJdbcRepository {
+
+    private static final String INSERT_SQL
+            = "INSERT INTO sms_outbox (destination, destination_key, message, status, attempts, created_at, available_at, "
+            + "message_type, student_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertAll(List<SmsOutboxMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                SmsOutboxMessage message = messages.get(i);
+                ps.setString(1, message.getDestination());
+                ps.setString(2, message.getDestinationKey());
+                ps.setString(3, message.getMessage());
+                ps.setString(4, message.getStatus().name());
+                ps.setInt(5, message.getAttempts());
+                ps.setTimestamp(6, Timestamp.from(message.getCreatedAt()));
+                ps.setTimestamp(7, Timestamp.from(message.getAvailableAt()));
+                ps.setString(8, message.getMessageType() != null ? message.getMessageType().name() : null);
+                ps.setObject(9, message.getStudentId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return messages.size();
+            }
+        });
+    }
+}
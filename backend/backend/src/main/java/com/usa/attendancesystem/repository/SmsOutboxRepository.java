@@ -0,0 +1,69 @@
+package com.usa.attendancesystem.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.usa.attendancesystem.model.SmsOutboxMessage;
+import com.usa.attendancesystem.model.SmsOutboxStatus;
+
+@Repository
+public interface SmsOutboxRepository extends JpaRepository<SmsOutboxMessage, Long> {
+
+    /**
+     * Locks the oldest pending messages that are due for delivery. SKIP LOCKED
+     * lets several dispatcher instances drain the outbox without blocking each
+     * other or picking up the same row twice.
+     */
+    @Query(value = "SELECT * FROM sms_outbox WHERE status = 'PENDING' AND available_at <= :now ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<SmsOutboxMessage> findDispatchableForUpdate(@Param("now") Instant now, @Param("limit") int limit);
+
+    /**
+     * Locks the pending messages for the given phones, by normalized
+     * destination, that have never been tried, whether due yet or still held,
+     * so they can be sent merged with a due one. Messages backing off after a
+     * failure are not included.
+     */
+    @Query(value = "SELECT * FROM sms_outbox WHERE status = 'PENDING' AND attempts = 0 AND destination_key IN (:destinationKeys) "
+            + "AND id NOT IN (:excludedIds) ORDER BY id FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<SmsOutboxMessage> findHeldForUpdate(
+            @Param("destinationKeys") Collection<String> destinationKeys,
+            @Param("excludedIds") Collection<Long> excludedIds);
+
+    @Modifying
+    @Query("UPDATE SmsOutboxMessage m SET m.status = :status, m.sentAt = :sentAt, m.lastError = null WHERE m.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("status") SmsOutboxStatus status, @Param("sentAt") Instant sentAt);
+
+    @Modifying
+    @Query("UPDATE SmsOutboxMessage m SET m.status = :status, m.lastError = :error WHERE m.id = :id")
+    int markFailed(@Param("id") Long id, @Param("status") SmsOutboxStatus status, @Param("error") String error);
+
+    /**
+     * Puts a message whose delivery failed back in the pending queue, due
+     * again at the given time.
+     */
+    @Modifying
+    @Query("UPDATE SmsOutboxMessage m SET m.status = :status, m.availableAt = :availableAt, m.claimedAt = null, m.lastError = :error WHERE m.id = :id")
+    int scheduleRetry(
+            @Param("id") Long id,
+            @Param("status") SmsOutboxStatus status,
+            @Param("availableAt") Instant availableAt,
+            @Param("error") String error);
+
+    /**
+     * Returns messages whose dispatcher died mid-send back to the pending queue,
+     * so a crash between claim and delivery never loses a notification.
+     */
+    @Modifying
+    @Query("UPDATE SmsOutboxMessage m SET m.status = :pending, m.claimedAt = null WHERE m.status = :sending AND m.claimedAt < :cutoff")
+    int releaseStaleClaims(
+            @Param("pending") SmsOutboxStatus pending,
+            @Param("sending") SmsOutboxStatus sending,
+            @Param("cutoff") Instant cutoff);
+}
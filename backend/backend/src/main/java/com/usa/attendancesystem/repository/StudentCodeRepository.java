@@ -0,0 +1,70 @@
+package com.usa.attendancesystem.repository;
+
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Numbers for STU student ID codes and IDX index numbers, handed out by
+ * PostgreSQL sequences. Allocation is a single nextval call however many
+ * students exist, and concurrent callers never receive the same number.
+ *
+ * <p>
+ * Sequences are not transactional: numbers taken by a transaction that rolls
+ * back are not handed out again, so codes may have gaps.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StudentCodeRepository {
+
+    public static final String STUDENT_ID_CODE_SEQUENCE = "student_id_code_seq";
+    public static final String INDEX_NUMBER_SEQUENCE = "index_number_seq";
+
+    private static final String NEXT_NUMBERS_SQL
+            = "SELECT nextval('" + STUDENT_ID_CODE_SEQUENCE + "'), nextval('" + INDEX_NUMBER_SEQUENCE + "') "
+            + "FROM generate_series(1, ?) ORDER BY 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * One pair of numbers, taken together for a new student.
+     */
+    public record CodeNumbers(long studentIdNumber, long indexNumber) {
+
+    }
+
+    /**
+     * Takes the given number of STU/IDX number pairs, in ascending order.
+     */
+    public List<CodeNumbers> nextNumbers(int count) {
+        return jdbcTemplate.query(NEXT_NUMBERS_SQL,
+                (rs, rowNum) -> new CodeNumbers(rs.getLong(1), rs.getLong(2)), count);
+    }
+
+    public long nextValue(String sequence) {
+        return jdbcTemplate.queryForObject("SELECT nextval('" + sequence + "')", Long.class);
+    }
+
+    /**
+     * The number the next {@link #nextValue} call would return, without
+     * taking it. Another caller may take it first.
+     */
+    public long peekValue(String sequence) {
+        return jdbcTemplate.queryForObject(
+                "SELECT CASE WHEN is_called THEN last_value + 1 ELSE last_value END FROM " + sequence, Long.class);
+    }
+
+    /**
+     * Marks numbers up to and including {@code used} as taken, for codes
+     * chosen outside the sequence. Never moves the sequence backwards.
+     */
+    public void advancePast(String sequence, long used) {
+        jdbcTemplate.queryForList(
+                "SELECT setval('" + sequence + "', GREATEST(?, last_value)) FROM " + sequence
+                + " WHERE ? >= CASE WHEN is_called THEN last_value + 1 ELSE last_value END",
+                Long.class, used, used);
+    }
+}
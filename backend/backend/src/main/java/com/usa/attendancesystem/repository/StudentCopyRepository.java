@@ -0,0 +1,161 @@
+package com.usa.attendancesystem.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Bulk student writes through PostgreSQL COPY, for loads too large for JDBC
+ * batches. Rows are streamed into temporary staging tables and then merged
+ * into students and student_subjects with one INSERT ... SELECT each, so the
+ * real tables are only touched by set-based statements.
+ *
+ * <p>
+ * Must run inside a transaction: the staging tables live until it commits,
+ * and COPY uses the transaction's own connection.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StudentCopyRepository {
+
+    private static final String CREATE_STUDENT_STAGING_SQL
+            = "CREATE TEMP TABLE student_load ("
+            + "id UUID NOT NULL, student_id_code VARCHAR(50) NOT NULL, index_number VARCHAR(10) NOT NULL, "
+            + "full_name VARCHAR(255) NOT NULL, parent_phone VARCHAR(20) NOT NULL, student_phone VARCHAR(20), "
+            + "batch_id INTEGER NOT NULL, import_job_id UUID"
+            + ") ON COMMIT DROP";
+
+    private static final String CREATE_SUBJECT_STAGING_SQL
+            = "CREATE TEMP TABLE student_subject_load (student_id UUID NOT NULL, subject_id INTEGER NOT NULL) ON COMMIT DROP";
+
+    private static final String COPY_STUDENTS_SQL
+            = "COPY student_load (id, student_id_code, index_number, full_name, parent_phone, student_phone, batch_id, import_job_id) "
+            + "FROM STDIN WITH (FORMAT csv)";
+
+    private static final String COPY_SUBJECTS_SQL
+            = "COPY student_subject_load (student_id, subject_id) FROM STDIN WITH (FORMAT csv)";
+
+    private static final String MERGE_STUDENTS_SQL
+            = "INSERT INTO students (id, student_id_code, index_number, full_name, parent_phone, student_phone, is_active, batch_id, import_job_id) "
+            + "SELECT id, student_id_code, index_number, full_name, parent_phone, student_phone, TRUE, batch_id, import_job_id "
+            + "FROM student_load";
+
+    private static final String MERGE_SUBJECTS_SQL
+            = "INSERT INTO student_subjects (student_id, subject_id) SELECT student_id, subject_id FROM student_subject_load";
+
+    /**
+     * Encoded rows are sent to the server in pieces of about this many
+     * characters rather than all at once.
+     */
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Loads the students and their subject enrolments. Behaves like
+     * {@link StudentJdbcRepository#insertAll}: a constraint violation fails
+     * the whole call.
+     */
+    public void copyAll(List<StudentJdbcRepository.NewStudent> students) {
+        if (students.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute(CREATE_STUDENT_STAGING_SQL);
+        jdbcTemplate.execute(CREATE_SUBJECT_STAGING_SQL);
+
+        // The callback gets the transaction's connection, so the staging tables are visible to COPY
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+
+            CopyWriter studentRows = new CopyWriter(copyManager.copyIn(COPY_STUDENTS_SQL));
+            for (StudentJdbcRepository.NewStudent student : students) {
+                studentRows.row(
+                        student.id().toString(),
+                        student.studentIdCode(),
+                        student.indexNumber(),
+                        student.fullName(),
+                        student.parentPhone(),
+                        student.studentPhone(),
+                        String.valueOf(student.batchId()),
+                        student.importJobId() != null ? student.importJobId().toString() : null);
+            }
+            studentRows.finish();
+
+            CopyWriter subjectRows = new CopyWriter(copyManager.copyIn(COPY_SUBJECTS_SQL));
+            for (StudentJdbcRepository.NewStudent student : students) {
+                for (Integer subjectId : student.subjectIds()) {
+                    subjectRows.row(student.id().toString(), String.valueOf(subjectId));
+                }
+            }
+            subjectRows.finish();
+            return null;
+        });
+
+        jdbcTemplate.update(MERGE_STUDENTS_SQL);
+        jdbcTemplate.update(MERGE_SUBJECTS_SQL);
+    }
+
+    /**
+     * Encodes rows in COPY's CSV format and streams them to the server. Every
+     * value is quoted, so an empty string stays distinct from null, which is
+     * written as nothing at all.
+     */
+    private static final class CopyWriter {
+
+        private final CopyIn copyIn;
+        private final StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE + 1024);
+
+        private CopyWriter(CopyIn copyIn) {
+            this.copyIn = copyIn;
+        }
+
+        private void row(String... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                if (values[i] != null) {
+                    buffer.append('"').append(values[i].replace("\"", "\"\"")).append('"');
+                }
+            }
+            buffer.append('\n');
+            if (buffer.length() >= COPY_BUFFER_SIZE) {
+                flush();
+            }
+        }
+
+        private void finish() throws SQLException {
+            try {
+                flush();
+                copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        }
+
+        private void flush() throws SQLException {
+            if (buffer.length() == 0) {
+                return;
+            }
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            buffer.setLength(0);
+            try {
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+            } catch (SQLException e) {
+                copyIn.cancelCopy();
+                throw e;
+            }
+        }
+    }
+}
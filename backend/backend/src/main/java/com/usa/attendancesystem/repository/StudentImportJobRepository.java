@@ -0,0 +1,46 @@
+package com.usa.attendancesystem.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.usa.attendancesystem.model.StudentImportJob;
+import com.usa.attendancesystem.model.StudentImportJobStatus;
+
+@Repository
+public interface StudentImportJobRepository extends JpaRepository<StudentImportJob, UUID> {
+
+    /**
+     * Fails unfinished jobs whose server stopped: those owned by the given
+     * server, which is starting up, and those whose heartbeat is older than
+     * {@code staleBefore}. Their workers and spooled uploads are gone.
+     * Pass a null owner to fail only stale jobs.
+     */
+    @Modifying
+    @Query("UPDATE StudentImportJob j SET j.status = :failed, j.errorMessage = :error, j.finishedAt = :finishedAt "
+            + "WHERE j.status IN :unfinished "
+            + "AND (j.ownerInstance = :owner OR j.heartbeatAt IS NULL OR j.heartbeatAt < :staleBefore)")
+    int failAbandoned(
+            @Param("unfinished") Collection<StudentImportJobStatus> unfinished,
+            @Param("owner") String owner,
+            @Param("staleBefore") Instant staleBefore,
+            @Param("failed") StudentImportJobStatus failed,
+            @Param("error") String error,
+            @Param("finishedAt") Instant finishedAt);
+
+    /**
+     * Records that the calling server is still working on these jobs.
+     */
+    @Modifying
+    @Query("UPDATE StudentImportJob j SET j.heartbeatAt = :heartbeatAt WHERE j.id IN :ids AND j.status IN :unfinished")
+    int touchHeartbeats(
+            @Param("ids") Collection<UUID> ids,
+            @Param("unfinished") Collection<StudentImportJobStatus> unfinished,
+            @Param("heartbeatAt") Instant heartbeatAt);
+}
@@ -0,0 +1,119 @@
+package com.usa.attendancesystem.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * JDBC batch writes for bulk student imports. Runs inside the caller's JPA
+ * transaction, since both share the same DataSource connection.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StudentJdbcRepository {
+
+    private static final String INSERT_STUDENT_SQL
+            = "INSERT INTO students (id, student_id_code, index_number, full_name, parent_phone, student_phone, is_active, batch_id, import_job_id) "
+            + "VALUES (?, ?, ?, ?, ?, ?, TRUE, ?, ?)";
+
+    private static final String INSERT_STUDENT_SUBJECT_SQL
+            = "INSERT INTO student_subjects (student_id, subject_id) VALUES (?, ?)";
+
+    private static final String DUPLICATE_KEYS_SQL
+            = "SELECT student_id_code, full_name, parent_phone FROM students";
+
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record NewStudent(
+            UUID id,
+            String studentIdCode,
+            String indexNumber,
+            String fullName,
+            String parentPhone,
+            String studentPhone,
+            Integer batchId,
+            Collection<Integer> subjectIds,
+            UUID importJobId
+            ) {
+
+    }
+
+    /**
+     * The fields imports use to recognise a student that already exists.
+     */
+    public record DuplicateKey(String studentIdCode, String fullName, String parentPhone) {
+
+    }
+
+    /**
+     * Passes the duplicate-check fields of every student to the consumer,
+     * reading rows from a cursor instead of building a list. The cursor only
+     * streams inside a transaction.
+     */
+    public void forEachDuplicateKey(Consumer<DuplicateKey> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(DUPLICATE_KEYS_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(new DuplicateKey(
+                rs.getString("student_id_code"),
+                rs.getString("full_name"),
+                rs.getString("parent_phone"))));
+    }
+
+    /**
+     * Inserts the students and their subject enrolments as two JDBC batches.
+     */
+    public void insertAll(List<NewStudent> students) {
+        if (students.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_STUDENT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                NewStudent student = students.get(i);
+                ps.setObject(1, student.id());
+                ps.setString(2, student.studentIdCode());
+                ps.setString(3, student.indexNumber());
+                ps.setString(4, student.fullName());
+                ps.setString(5, student.parentPhone());
+                if (student.studentPhone() != null) {
+                    ps.setString(6, student.studentPhone());
+                } else {
+                    ps.setNull(6, Types.VARCHAR);
+                }
+                ps.setInt(7, student.batchId());
+                ps.setObject(8, student.importJobId(), Types.OTHER);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return students.size();
+            }
+        });
+
+        List<Object[]> enrolments = new ArrayList<>();
+        for (NewStudent student : students) {
+            for (Integer subjectId : student.subjectIds()) {
+                enrolments.add(new Object[]{student.id(), subjectId});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_STUDENT_SUBJECT_SQL, enrolments);
+    }
+}
@@ -0,0 +1,127 @@
+package com.usa.attendancesystem.repository;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.usa.attendancesystem.dto.BatchDto;
+import com.usa.attendancesystem.dto.StudentDto;
+import com.usa.attendancesystem.dto.SubjectDto;
+import com.usa.attendancesystem.model.StudentSortKey;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Keyset-paginated student listings. A page is read with two queries
+ * whatever its position: the students with their batch, filtered and sorted
+ * in the database, then the subjects of all of them at once.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StudentListingRepository {
+
+    private static final String SELECT_STUDENTS_SQL
+            = "SELECT s.id, s.student_id_code, s.index_number, s.full_name, s.parent_phone, s.student_phone, s.is_active, "
+            + "b.id AS batch_id, b.batch_year "
+            + "FROM students s JOIN batches b ON b.id = s.batch_id";
+
+    private static final String SELECT_SUBJECTS_SQL
+            = "SELECT ss.student_id, sub.id, sub.name FROM student_subjects ss "
+            + "JOIN subjects sub ON sub.id = ss.subject_id "
+            + "WHERE ss.student_id = ANY(?::uuid[])";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Where a page starts: after the student with this sort value and id.
+     */
+    public record Cursor(String sortValue, UUID id) {
+
+    }
+
+    /**
+     * Lists up to {@code limit} students after the cursor, or from the start
+     * when it is null. Any filter left null is not applied.
+     */
+    public List<StudentDto> findPage(Integer batchId, Integer subjectId, Boolean active,
+            StudentSortKey sort, Cursor after, int limit) {
+        String column = "s." + column(sort);
+        StringBuilder sql = new StringBuilder(SELECT_STUDENTS_SQL);
+        List<Object> args = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        if (batchId != null) {
+            conditions.add("s.batch_id = ?");
+            args.add(batchId);
+        }
+        if (active != null) {
+            conditions.add("s.is_active = ?");
+            args.add(active);
+        }
+        if (subjectId != null) {
+            conditions.add("EXISTS (SELECT 1 FROM student_subjects f WHERE f.student_id = s.id AND f.subject_id = ?)");
+            args.add(subjectId);
+        }
+        if (after != null) {
+            conditions.add("(" + column + ", s.id) > (?, ?)");
+            args.add(after.sortValue());
+            args.add(after.id());
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(" ORDER BY ").append(column).append(", s.id LIMIT ?");
+        args.add(limit);
+
+        Map<UUID, Set<SubjectDto>> subjectsByStudent = new LinkedHashMap<>();
+        List<StudentDto> students = jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            UUID id = rs.getObject("id", UUID.class);
+            Set<SubjectDto> subjects = new HashSet<>();
+            subjectsByStudent.put(id, subjects);
+            return new StudentDto(
+                    id,
+                    rs.getString("student_id_code"),
+                    rs.getString("index_number"),
+                    rs.getString("full_name"),
+                    rs.getString("parent_phone"),
+                    rs.getString("student_phone"),
+                    rs.getBoolean("is_active"),
+                    new BatchDto(rs.getInt("batch_id"), rs.getInt("batch_year")),
+                    subjects);
+        }, args.toArray());
+
+        if (!students.isEmpty()) {
+            UUID[] ids = subjectsByStudent.keySet().toArray(UUID[]::new);
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(SELECT_SUBJECTS_SQL);
+                ps.setArray(1, connection.createArrayOf("uuid", ids));
+                return ps;
+            }, rs -> {
+                subjectsByStudent.get(rs.getObject("student_id", UUID.class))
+                        .add(new SubjectDto(rs.getInt("id"), rs.getString("name")));
+            });
+        }
+        return students;
+    }
+
+    /**
+     * Maps sort keys to columns. Only these names are ever put into SQL.
+     */
+    private static String column(StudentSortKey sort) {
+        return switch (sort) {
+            case STUDENT_ID_CODE ->
+                "student_id_code";
+            case INDEX_NUMBER ->
+                "index_number";
+            case FULL_NAME ->
+                "full_name";
+        };
+    }
+}
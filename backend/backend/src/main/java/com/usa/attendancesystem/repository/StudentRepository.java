@@ -1,14 +1,20 @@
 package com.usa.attendancesystem.repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.usa.attendancesystem.dto.RosterStudentDto;
+import com.usa.attendancesystem.dto.StudentSubjectRowDto;
 import com.usa.attendancesystem.model.Student;
 
 @Repository
@@ -26,6 +32,51 @@ public interface StudentRepository extends JpaRepository<Student, UUID> {
      */
     Optional<Student> findByIndexNumber(String indexNumber);
 
+    /**
+     * Projects the active students of a batch enrolled in a subject who have
+     * no attendance mark for it on the given day: the absent half of the
+     * daily report. Returns one row per (student, subject) so batch and
+     * subjects come back in the same single query.
+     */
+    @Query("SELECT new com.usa.attendancesystem.dto.StudentSubjectRowDto(s.id, s.studentIdCode, s.indexNumber, s.fullName, "
+            + "s.parentPhone, s.studentPhone, s.isActive, b.id, b.batchYear, sub.id, sub.name) "
+            + "FROM Student s JOIN s.batch b JOIN s.subjects sub "
+            + "WHERE b.id = :batchId AND s.isActive = true "
+            + "AND EXISTS (SELECT 1 FROM Student e JOIN e.subjects es WHERE e.id = s.id AND es.id = :subjectId) "
+            + "AND NOT EXISTS (SELECT 1 FROM AttendanceRecord ar WHERE ar.student.id = s.id "
+            + "AND ar.subject.id = :subjectId AND ar.attendanceDate = :attendanceDate) "
+            + "ORDER BY s.studentIdCode, s.id")
+    List<StudentSubjectRowDto> findAbsentStudentRows(
+            @Param("batchId") Integer batchId,
+            @Param("subjectId") Integer subjectId,
+            @Param("attendanceDate") LocalDate attendanceDate);
+
+    /**
+     * Pages through the IDs of the students created by an import job, in
+     * student ID order.
+     */
+    @Query(value = "SELECT s.id FROM Student s WHERE s.importJobId = :jobId ORDER BY s.studentIdCode, s.id",
+            countQuery = "SELECT COUNT(s) FROM Student s WHERE s.importJobId = :jobId")
+    Page<UUID> findIdsByImportJobId(@Param("jobId") UUID jobId, Pageable pageable);
+
+    /**
+     * Projects the given students with their batch and subjects, one row per
+     * (student, subject), in student ID order.
+     */
+    @Query("SELECT new com.usa.attendancesystem.dto.StudentSubjectRowDto(s.id, s.studentIdCode, s.indexNumber, s.fullName, "
+            + "s.parentPhone, s.studentPhone, s.isActive, b.id, b.batchYear, sub.id, sub.name) "
+            + "FROM Student s JOIN s.batch b JOIN s.subjects sub "
+            + "WHERE s.id IN :ids "
+            + "ORDER BY s.studentIdCode, s.id")
+    List<StudentSubjectRowDto> findStudentRowsByIds(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Returns which of the given index numbers belong to an existing student.
+     * Used to classify roster misses in bulk check-ins with a single query.
+     */
+    @Query("SELECT s.indexNumber FROM Student s WHERE s.indexNumber IN :indexNumbers")
+    List<String> findExistingIndexNumbers(@Param("indexNumbers") Collection<String> indexNumbers);
+
     /**
      * Finds all active students belonging to a specific batch and enrolled in a
      * specific subject. This is the core query for filtering the student list
@@ -34,6 +85,51 @@ public interface StudentRepository extends JpaRepository<Student, UUID> {
     @Query("SELECT s FROM Student s JOIN s.subjects sub WHERE s.batch.id = :batchId AND sub.id = :subjectId AND s.isActive = true")
     List<Student> findActiveStudentsByBatchAndSubject(@Param("batchId") Integer batchId, @Param("subjectId") Integer subjectId);
 
+    /**
+     * Projects the active students of a batch enrolled in a subject straight
+     * into roster entries. Used to build the attendance session roster cache
+     * without hydrating Student entities or their collections.
+     */
+    @Query("SELECT new com.usa.attendancesystem.dto.RosterStudentDto(s.id, s.indexNumber, s.fullName, s.parentPhone) "
+            + "FROM Student s JOIN s.subjects sub WHERE s.batch.id = :batchId AND sub.id = :subjectId AND s.isActive = true")
+    List<RosterStudentDto> findRosterStudentsByBatchAndSubject(@Param("batchId") Integer batchId, @Param("subjectId") Integer subjectId);
+
+    /**
+     * Roster entries for those of the given index numbers that belong to
+     * active students of the batch enrolled in the subject. Used to re-check
+     * roster misses in bulk check-ins, in case the cached roster predates an
+     * enrolment.
+     */
+    @Query("SELECT new com.usa.attendancesystem.dto.RosterStudentDto(s.id, s.indexNumber, s.fullName, s.parentPhone) "
+            + "FROM Student s JOIN s.subjects sub WHERE s.batch.id = :batchId AND sub.id = :subjectId AND s.isActive = true "
+            + "AND s.indexNumber IN :indexNumbers")
+    List<RosterStudentDto> findRosterStudentsByIndexNumbers(
+            @Param("batchId") Integer batchId,
+            @Param("subjectId") Integer subjectId,
+            @Param("indexNumbers") Collection<String> indexNumbers);
+
+    /**
+     * Projects every active student with their batch and subjects, one row
+     * per (student, subject). Students without subjects get a single row with
+     * no subject.
+     */
+    @Query("SELECT new com.usa.attendancesystem.dto.StudentSubjectRowDto(s.id, s.studentIdCode, s.indexNumber, s.fullName, "
+            + "s.parentPhone, s.studentPhone, s.isActive, b.id, b.batchYear, sub.id, sub.name) "
+            + "FROM Student s JOIN s.batch b LEFT JOIN s.subjects sub "
+            + "WHERE s.isActive = true "
+            + "ORDER BY s.studentIdCode, s.id")
+    List<StudentSubjectRowDto> findActiveStudentRows();
+
+    /**
+     * Parent phones of the active students of a batch, in student ID order.
+     * With a subject, only students enrolled in it are included; without
+     * one, the whole batch.
+     */
+    @Query("SELECT s.parentPhone FROM Student s WHERE s.batch.id = :batchId AND s.isActive = true "
+            + "AND (:subjectId IS NULL OR EXISTS (SELECT 1 FROM Student e JOIN e.subjects es WHERE e.id = s.id AND es.id = :subjectId)) "
+            + "ORDER BY s.studentIdCode")
+    List<String> findActiveParentPhones(@Param("batchId") Integer batchId, @Param("subjectId") Integer subjectId);
+
     /**
      * Finds all active students for dashboard statistics.
      */
@@ -52,18 +148,4 @@ public interface StudentRepository extends JpaRepository<Student, UUID> {
      */
     @Query("SELECT s FROM Student s JOIN s.subjects sub WHERE sub.id = :subjectId AND s.isActive = true")
     List<Student> findActiveStudentsBySubject(@Param("subjectId") Integer subjectId);
-
-    /**
-     * Finds the highest index number for auto-generation. Returns the student
-     *  with the highest index number (lexicographically).
-     */
-    @Query("SELECT s FROM Student s ORDER BY s.indexNumber DESC")
-    List<Student> findAllOrderByIndexNumberDesc();
-
-    /**
-     * Finds the highest student ID code for auto-generation. Returns students
-     *  ordered by student ID code descending.
-     */
-    @Query("SELECT s FROM Student s ORDER BY s.studentIdCode DESC")
-    List<Student> findAllOrderByStudentIdCodeDesc();
 }
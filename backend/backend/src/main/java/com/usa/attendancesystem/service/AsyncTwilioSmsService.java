@@ -0,0 +1,166 @@
+package com.usa.attendancesystem.service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.usa.attendancesystem.exception.SmsDeliveryException;
+
+/**
+ * Sends SMS through Twilio's Messages REST endpoint with the JDK's
+ * non-blocking HTTP client instead of the SDK's blocking call, so no thread
+ * waits on the network while a message is in flight. At most
+ * {@code twilio.async.max-in-flight} requests are open at once; further sends
+ * wait for a slot before their request is made.
+ *
+ * <p>
+ * Used instead of {@link TwilioSmsService} when {@code twilio.async.enabled}
+ * is true.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = {"twilio.enabled", "twilio.async.enabled"}, havingValue = "true")
+public class AsyncTwilioSmsService implements SmsService {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncTwilioSmsService.class);
+
+    private final URI messagesUri;
+    private final String authorization;
+    private final String fromNumber;
+    private final String statusCallbackUrl;
+    private final Duration requestTimeout;
+    private final Semaphore inFlight;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+
+    public AsyncTwilioSmsService(
+            @Value("${twilio.account.sid}") String accountSid,
+            @Value("${twilio.auth.token}") String authToken,
+            @Value("${twilio.phone.number}") String fromNumber,
+            @Value("${twilio.status-callback.url:}") String statusCallbackUrl,
+            @Value("${twilio.api.base-url:https://api.twilio.com}") String baseUrl,
+            @Value("${twilio.async.max-in-flight:50}") int maxInFlight,
+            @Value("${twilio.async.request-timeout-ms:10000}") long requestTimeoutMs,
+            ObjectMapper objectMapper) {
+        this.messagesUri = URI.create(baseUrl + "/2010-04-01/Accounts/" + accountSid + "/Messages.json");
+        this.authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((accountSid + ":" + authToken).getBytes(StandardCharsets.UTF_8));
+        this.fromNumber = fromNumber;
+        this.statusCallbackUrl = statusCallbackUrl;
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.inFlight = new Semaphore(Math.max(maxInFlight, 1));
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(requestTimeoutMs))
+                .build();
+        log.info("Async Twilio client initialized with account SID: {}, at most {} requests in flight", accountSid, maxInFlight);
+    }
+
+    @Override
+    public void sendSms(String toPhoneNumber, String message) {
+        try {
+            sendSmsAsync(toPhoneNumber, message).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> sendSmsAsync(String toPhoneNumber, String message) {
+        Map<String, String> form = new LinkedHashMap<>();
+        form.put("To", toPhoneNumber);
+        form.put("From", fromNumber);
+        form.put("Body", message);
+        if (!statusCallbackUrl.isBlank()) {
+            form.put("StatusCallback", statusCallbackUrl);
+        }
+        HttpRequest request = HttpRequest.newBuilder(messagesUri)
+                .timeout(requestTimeout)
+                .header("Authorization", authorization)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(encode(form)))
+                .build();
+
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(
+                    new SmsDeliveryException("Interrupted before sending SMS to " + toPhoneNumber, true, e));
+        }
+        CompletableFuture<HttpResponse<String>> response;
+        try {
+            response = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        } catch (RuntimeException e) {
+            inFlight.release();
+            return CompletableFuture.failedFuture(
+                    new SmsDeliveryException("Could not send SMS to " + toPhoneNumber + ": " + e.getMessage(), true, e));
+        }
+        return response
+                .whenComplete((result, failure) -> inFlight.release())
+                .handle((result, failure) -> toOutcome(toPhoneNumber, result, failure));
+    }
+
+    /**
+     * Turns the HTTP exchange into the message SID, or throws the failure
+     * classified like {@link TwilioSmsService} does: throttling (429), server
+     * errors and I/O failures are retryable, other client errors are not.
+     */
+    private String toOutcome(String toPhoneNumber, HttpResponse<String> response, Throwable failure) {
+        if (failure != null) {
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+            // Connection failures and timeouts: the message may go through on a later try
+            throw new SmsDeliveryException("Could not reach Twilio to send SMS to " + toPhoneNumber + ": " + cause.getMessage(),
+                    true, cause);
+        }
+        int status = response.statusCode();
+        JsonNode body = readBody(response.body());
+        if (status / 100 == 2) {
+            String sid = body.path("sid").asText(null);
+            log.info("Successfully sent SMS to {} ({})", toPhoneNumber, sid);
+            return sid;
+        }
+        throw new SmsDeliveryException("Twilio rejected SMS to " + toPhoneNumber + " (HTTP " + status
+                + ", code " + body.path("code").asText("none") + "): " + body.path("message").asText(response.body()),
+                status == 429 || status >= 500, null);
+    }
+
+    private JsonNode readBody(String body) {
+        try {
+            return objectMapper.readTree(body == null || body.isEmpty() ? "{}" : body);
+        } catch (IOException e) {
+            return objectMapper.createObjectNode();
+        }
+    }
+
+    private static String encode(Map<String, String> form) {
+        return form.entrySet().stream()
+                .map(entry -> URLEncoder.encode(entry.getKey(), StandardCharsets.UTF_8) + "="
+                + URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+    }
+}
@@ -0,0 +1,286 @@
+package com.usa.attendancesystem.service;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.usa.attendancesystem.exception.ResourceNotFoundException;
+import com.usa.attendancesystem.repository.AttendanceExportRepository;
+import com.usa.attendancesystem.repository.BatchRepository;
+import com.usa.attendancesystem.repository.SubjectRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Exports attendance as Excel or CSV. Rows are read from a database cursor
+ * and written straight to the response stream: CSV through a CSVPrinter, and
+ * Excel through an SXSSFWorkbook that keeps only a small window of rows in
+ * memory and spills the rest to a compressed temp file.
+ */
+@Service
+@RequiredArgsConstructor
+public class AttendanceExportService {
+
+    public enum Format {
+        XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+        CSV("csv", "text/csv");
+
+        private final String extension;
+        private final String contentType;
+
+        Format(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public static Format from(String value) {
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + value + ". Use xlsx or csv.");
+            }
+        }
+    }
+
+    private static final long MAX_RANGE_DAYS = 366;
+    private static final int SXSSF_WINDOW_SIZE = 100;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("hh:mm a");
+
+    private static final String[] DAILY_HEADERS = {
+        "Student ID", "Index Number", "Full Name", "Parent Phone", "Status", "Check-in Time"
+    };
+    private static final String[] RANGE_HEADERS = {
+        "Date", "Check-in Time", "Batch", "Subject", "Student ID", "Index Number", "Full Name"
+    };
+
+    private final AttendanceExportRepository exportRepository;
+    private final BatchRepository batchRepository;
+    private final SubjectRepository subjectRepository;
+
+    /**
+     * Checks the request before the response is committed, so bad input still
+     * gets a proper error status instead of a truncated file.
+     */
+    @Transactional(readOnly = true)
+    public void validateDailyReport(Integer batchId, Integer subjectId) {
+        requireBatch(batchId);
+        requireSubject(subjectId);
+    }
+
+    @Transactional(readOnly = true)
+    public void validateRange(LocalDate from, LocalDate to, Integer batchId, Integer subjectId) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Date range cannot exceed " + MAX_RANGE_DAYS + " days");
+        }
+        if (batchId != null) {
+            requireBatch(batchId);
+        }
+        if (subjectId != null) {
+            requireSubject(subjectId);
+        }
+    }
+
+    /**
+     * The daily report (present and absent students of a batch for one
+     * subject) as a file.
+     */
+    @Transactional(readOnly = true)
+    public void exportDailyReport(LocalDate date, Integer batchId, Integer subjectId, Format format, OutputStream out)
+            throws IOException {
+        try (TabularWriter writer = createWriter(format, "Attendance " + date, out)) {
+            writer.writeRow(DAILY_HEADERS);
+            String[] row = new String[DAILY_HEADERS.length];
+            exportRepository.streamDailyReport(date, batchId, subjectId, rs -> {
+                Timestamp checkIn = rs.getTimestamp("attendance_timestamp");
+                row[0] = rs.getString("student_id_code");
+                row[1] = rs.getString("index_number");
+                row[2] = rs.getString("full_name");
+                row[3] = rs.getString("parent_phone");
+                row[4] = checkIn != null ? "Present" : "Absent";
+                row[5] = checkIn != null ? formatTime(checkIn) : "";
+                writeRow(writer, row);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Every mark in a date range, optionally limited to a batch and/or subject.
+     */
+    @Transactional(readOnly = true)
+    public void exportRange(LocalDate from, LocalDate to, Integer batchId, Integer subjectId, Format format,
+            OutputStream out) throws IOException {
+        try (TabularWriter writer = createWriter(format, "Attendance", out)) {
+            writer.writeRow(RANGE_HEADERS);
+            String[] row = new String[RANGE_HEADERS.length];
+            exportRepository.streamRange(from, to, batchId, subjectId, rs -> {
+                row[0] = rs.getObject("attendance_date", LocalDate.class).toString();
+                row[1] = formatTime(rs.getTimestamp("attendance_timestamp"));
+                row[2] = String.valueOf(rs.getInt("batch_year"));
+                row[3] = rs.getString("subject_name");
+                row[4] = rs.getString("student_id_code");
+                row[5] = rs.getString("index_number");
+                row[6] = rs.getString("full_name");
+                writeRow(writer, row);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void requireBatch(Integer batchId) {
+        if (!batchRepository.existsById(batchId)) {
+            throw new ResourceNotFoundException("Batch not found with ID: " + batchId);
+        }
+    }
+
+    private void requireSubject(Integer subjectId) {
+        if (!subjectRepository.existsById(subjectId)) {
+            throw new ResourceNotFoundException("Subject not found with ID: " + subjectId);
+        }
+    }
+
+    private static String formatTime(Timestamp timestamp) {
+        return timestamp.toInstant().atZone(ZoneId.systemDefault()).format(TIME_FORMAT);
+    }
+
+    private static void writeRow(TabularWriter writer, String[] row) {
+        try {
+            writer.writeRow(row);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static TabularWriter createWriter(Format format, String sheetName, OutputStream out) throws IOException {
+        return format == Format.CSV ? new CsvTabularWriter(out) : new XlsxTabularWriter(sheetName, out);
+    }
+
+    private interface TabularWriter extends Closeable {
+
+        void writeRow(String[] values) throws IOException;
+    }
+
+    private static final class CsvTabularWriter implements TabularWriter {
+
+        private final CSVPrinter printer;
+
+        private CsvTabularWriter(OutputStream out) throws IOException {
+            this.printer = new CSVPrinter(
+                    new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)), CSVFormat.DEFAULT);
+        }
+
+        @Override
+        public void writeRow(String[] values) throws IOException {
+            printer.printRecord((Object[]) values);
+        }
+
+        @Override
+        public void close() throws IOException {
+            printer.close(true);
+        }
+    }
+
+    /**
+     * Writes rows through a streaming workbook; the first row of every sheet
+     * is styled as a header. Starts a new sheet when one reaches Excel's row
+     * limit. The workbook itself is only serialized to the output on close.
+     */
+    private static final class XlsxTabularWriter implements TabularWriter {
+
+        private static final int MAX_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+        private final SXSSFWorkbook workbook;
+        private final OutputStream out;
+        private final String sheetName;
+        private final CellStyle headerStyle;
+        private String[] headers;
+        private SXSSFSheet sheet;
+        private int sheetCount;
+        private int nextRow;
+
+        private XlsxTabularWriter(String sheetName, OutputStream out) {
+            this.workbook = new SXSSFWorkbook(SXSSF_WINDOW_SIZE);
+            this.workbook.setCompressTempFiles(true);
+            this.out = out;
+            this.sheetName = sheetName;
+            this.headerStyle = workbook.createCellStyle();
+            Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            this.headerStyle.setFont(headerFont);
+        }
+
+        @Override
+        public void writeRow(String[] values) {
+            if (headers == null) {
+                headers = values.clone();
+                startSheet();
+                return;
+            }
+            if (nextRow == MAX_ROWS_PER_SHEET) {
+                startSheet();
+            }
+            Row row = sheet.createRow(nextRow++);
+            for (int i = 0; i < values.length; i++) {
+                row.createCell(i).setCellValue(values[i]);
+            }
+        }
+
+        private void startSheet() {
+            sheetCount++;
+            sheet = workbook.createSheet(sheetCount == 1 ? sheetName : sheetName + " (" + sheetCount + ")");
+            Row row = sheet.createRow(0);
+            for (int i = 0; i < headers.length; i++) {
+                Cell cell = row.createCell(i);
+                cell.setCellValue(headers[i]);
+                cell.setCellStyle(headerStyle);
+            }
+            nextRow = 1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                workbook.write(out);
+                out.flush();
+            } finally {
+                workbook.dispose();
+                workbook.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.usa.attendancesystem.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local append-only journal backing the write-behind attendance buffer. Every
+ * accepted check-in is appended and fsync'd before the kiosk gets its answer.
+ * A checkpoint file records the highest sequence known to be in the database;
+ * anything after it is replayed on startup. Once everything is flushed the
+ * journal is truncated, so it only ever holds the unflushed tail.
+ *
+ * <p>
+ * Entries can be confirmed out of order, e.g. when a row that failed is
+ * parked while later ones are written, so the checkpoint only advances over
+ * an unbroken run of confirmed sequences. Check-ins that cannot be written
+ * at all are parked in a separate file for an admin to look at.
+ */
+@Component
+@Slf4j
+public class AttendanceJournal {
+
+    private static final String JOURNAL_FILE = "attendance.journal";
+    private static final String CHECKPOINT_FILE = "attendance.checkpoint";
+    private static final String PARKED_FILE = "attendance.parked";
+    private static final String SEPARATOR = ",";
+
+    private final Path journalPath;
+    private final Path checkpointPath;
+    private final Path parkedPath;
+
+    private FileChannel channel;
+    private long lastSequence;
+    private long flushedSequence;
+    // Confirmed sequences after a gap, waiting for the entries before them
+    private final NavigableSet<Long> confirmedAhead = new TreeSet<>();
+
+    public AttendanceJournal(@Value("${attendance.write-behind.journal-dir:./data/attendance-journal}") String directory) {
+        Path dir = Paths.get(directory);
+        this.journalPath = dir.resolve(JOURNAL_FILE);
+        this.checkpointPath = dir.resolve(CHECKPOINT_FILE);
+        this.parkedPath = dir.resolve(PARKED_FILE);
+    }
+
+    @PostConstruct
+    synchronized void open() throws IOException {
+        Files.createDirectories(journalPath.getParent());
+        flushedSequence = readCheckpoint();
+        lastSequence = flushedSequence;
+        Set<Long> journaled = new HashSet<>();
+        for (BufferedCheckIn checkIn : readEntries()) {
+            lastSequence = Math.max(lastSequence, checkIn.sequence());
+            journaled.add(checkIn.sequence());
+        }
+        // Sequences missing from the file were never acknowledged (a failed append); they must not hold the checkpoint back
+        for (long sequence = flushedSequence + 1; sequence < lastSequence; sequence++) {
+            if (!journaled.contains(sequence)) {
+                confirmedAhead.add(sequence);
+            }
+        }
+        channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        log.info("Attendance journal opened at {} (flushed up to #{}, last entry #{})", journalPath, flushedSequence, lastSequence);
+    }
+
+    @PreDestroy
+    synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    public synchronized long nextSequence() {
+        return ++lastSequence;
+    }
+
+    /**
+     * Appends a check-in and forces it to disk before returning. If that
+     * fails the check-in was never accepted, so its sequence is treated as
+     * done and does not hold the checkpoint back.
+     */
+    public synchronized void append(BufferedCheckIn checkIn) {
+        try {
+            ByteBuffer bytes = ByteBuffer.wrap(format(checkIn).getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            confirm(List.of(checkIn.sequence()));
+            throw new IllegalStateException("Failed to write attendance journal: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Records that the given entries are in the database (or parked). The
+     * checkpoint moves up to the last sequence with no unconfirmed entry
+     * before it, and the journal is truncated when nothing is pending.
+     */
+    public synchronized void markFlushed(Collection<Long> sequences) {
+        confirm(sequences);
+    }
+
+    /**
+     * Sets aside a check-in that cannot be written to the database, with the
+     * reason, so it is not retried forever. The caller still confirms it with
+     * {@link #markFlushed}.
+     */
+    public synchronized void park(BufferedCheckIn checkIn, String reason) {
+        String line = format(checkIn).stripTrailing() + SEPARATOR + encode(reason == null ? "" : reason) + "\n";
+        try {
+            Files.writeString(parkedPath, line, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        } catch (IOException e) {
+            log.error("Failed to park attendance journal entry #{} ({}): {}", checkIn.sequence(), format(checkIn).trim(), e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the journaled check-ins that were not confirmed as flushed, in sequence order.
+     */
+    public synchronized List<BufferedCheckIn> readUnflushed() {
+        try {
+            return readEntries().stream()
+                    .filter(checkIn -> checkIn.sequence() > flushedSequence)
+                    .toList();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read attendance journal: " + e.getMessage(), e);
+        }
+    }
+
+    private void confirm(Collection<Long> sequences) {
+        for (Long sequence : sequences) {
+            if (sequence > flushedSequence) {
+                confirmedAhead.add(sequence);
+            }
+        }
+        long sequence = flushedSequence;
+        while (!confirmedAhead.isEmpty() && confirmedAhead.first() == sequence + 1) {
+            sequence = confirmedAhead.pollFirst();
+        }
+        advanceCheckpoint(sequence);
+    }
+
+    private void advanceCheckpoint(long sequence) {
+        if (sequence <= flushedSequence) {
+            return;
+        }
+        try {
+            writeCheckpoint(sequence);
+            flushedSequence = sequence;
+            if (flushedSequence == lastSequence) {
+                channel.truncate(0);
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            // Not fatal: the entries are replayed idempotently on the next startup
+            log.error("Failed to checkpoint attendance journal at #{}: {}", sequence, e.getMessage());
+        }
+    }
+
+    private static String format(BufferedCheckIn checkIn) {
+        return String.join(SEPARATOR,
+                Long.toString(checkIn.sequence()),
+                checkIn.sessionId().toString(),
+                checkIn.studentId().toString(),
+                checkIn.subjectId().toString(),
+                checkIn.attendanceDate().toString(),
+                checkIn.attendanceTimestamp().toString(),
+                encode(checkIn.parentPhone()),
+                encode(checkIn.message())) + "\n";
+    }
+
+    private List<BufferedCheckIn> readEntries() throws IOException {
+        List<BufferedCheckIn> entries = new ArrayList<>();
+        if (!Files.exists(journalPath)) {
+            return entries;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    entries.add(parse(line));
+                } catch (RuntimeException e) {
+                    // A torn final line from a crash mid-append; it was never acknowledged
+                    log.warn("Skipping unreadable attendance journal entry: {}", e.getMessage());
+                }
+            }
+        }
+        return entries;
+    }
+
+    private BufferedCheckIn parse(String line) {
+        String[] fields = line.split(SEPARATOR, -1);
+        if (fields.length != 8) {
+            throw new IllegalArgumentException("expected 8 fields but found " + fields.length);
+        }
+        return new BufferedCheckIn(
+                Long.parseLong(fields[0]),
+                Long.valueOf(fields[1]),
+                UUID.fromString(fields[2]),
+                Integer.valueOf(fields[3]),
+                LocalDate.parse(fields[4]),
+                Instant.parse(fields[5]),
+                decode(fields[6]),
+                decode(fields[7])
+        );
+    }
+
+    private long readCheckpoint() throws IOException {
+        if (!Files.exists(checkpointPath)) {
+            return 0;
+        }
+        return Long.parseLong(Files.readString(checkpointPath, StandardCharsets.UTF_8).trim());
+    }
+
+    private void writeCheckpoint(long sequence) throws IOException {
+        Path temp = checkpointPath.resolveSibling(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(ByteBuffer.wrap(Long.toString(sequence).getBytes(StandardCharsets.UTF_8)));
+            out.force(true);
+        }
+        Files.move(temp, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String encode(String value) {
+        return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String value) {
+        return new String(Base64.getDecoder().decode(value), StandardCharsets.UTF_8);
+    }
+}
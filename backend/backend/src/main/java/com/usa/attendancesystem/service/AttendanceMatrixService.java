@@ -0,0 +1,298 @@
+package com.usa.attendancesystem.service;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.usa.attendancesystem.exception.ResourceNotFoundException;
+import com.usa.attendancesystem.repository.AttendanceMatrixRepository;
+import com.usa.attendancesystem.repository.BatchRepository;
+import com.usa.attendancesystem.repository.SubjectRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Builds the students x dates attendance matrix for a batch and subject over
+ * a date range. Column dates are read first, then marks are streamed from a
+ * single cursor ordered by student; each student's row is a bitset over the
+ * columns and is written out as soon as the student's last mark is read, so
+ * memory stays constant in the number of students.
+ */
+@Service
+@RequiredArgsConstructor
+public class AttendanceMatrixService {
+
+    public enum Format {
+        JSON, CSV;
+
+        public static Format from(String value) {
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported matrix format: " + value + ". Use json or csv.");
+            }
+        }
+    }
+
+    private static final long MAX_RANGE_DAYS = 366;
+
+    private final AttendanceMatrixRepository matrixRepository;
+    private final BatchRepository batchRepository;
+    private final SubjectRepository subjectRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Checks the request before the response is committed, so bad input still
+     * gets a proper error status instead of a truncated stream.
+     */
+    @Transactional(readOnly = true)
+    public void validateRequest(Integer batchId, Integer subjectId, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Date range cannot exceed " + MAX_RANGE_DAYS + " days");
+        }
+        if (!batchRepository.existsById(batchId)) {
+            throw new ResourceNotFoundException("Batch not found with ID: " + batchId);
+        }
+        if (!subjectRepository.existsById(subjectId)) {
+            throw new ResourceNotFoundException("Subject not found with ID: " + subjectId);
+        }
+    }
+
+    /**
+     * Writes the matrix to the output stream in the requested format. Runs in
+     * a read-only transaction so the marks query can use a server-side cursor.
+     */
+    @Transactional(readOnly = true)
+    public void writeMatrix(Integer batchId, Integer subjectId, LocalDate from, LocalDate to,
+            Format format, OutputStream out) throws IOException {
+        List<LocalDate> dates = matrixRepository.findColumnDates(batchId, subjectId, from, to);
+        Map<LocalDate, Integer> columnByDate = new HashMap<>();
+        for (int i = 0; i < dates.size(); i++) {
+            columnByDate.put(dates.get(i), i);
+        }
+
+        try (MatrixWriter writer = format == Format.CSV
+                ? new CsvMatrixWriter(out)
+                : new JsonMatrixWriter(objectMapper.getFactory().createGenerator(out))) {
+            writer.writeHeader(batchId, subjectId, from, to, dates);
+
+            RowAccumulator rows = new RowAccumulator(dates.size(), writer);
+            matrixRepository.streamStudentMarks(batchId, subjectId, from, to, rs -> {
+                UUID studentId = rs.getObject("id", UUID.class);
+                if (!studentId.equals(rows.studentId)) {
+                    rows.emit();
+                    rows.start(studentId, rs.getString("student_id_code"), rs.getString("index_number"),
+                            rs.getString("full_name"));
+                }
+                LocalDate attendanceDate = rs.getObject("attendance_date", LocalDate.class);
+                if (attendanceDate != null) {
+                    Integer column = columnByDate.get(attendanceDate);
+                    if (column != null) {
+                        rows.present.set(column);
+                    }
+                }
+            });
+            rows.emit();
+
+            writer.writeFooter(rows.studentCount);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static double percentage(int present, int total) {
+        if (total == 0) {
+            return 0.0;
+        }
+        return Math.round(present * 1000.0 / total) / 10.0;
+    }
+
+    /**
+     * Collects the current student's marks and hands the finished row to the
+     * writer when the cursor moves on to the next student.
+     */
+    private static final class RowAccumulator {
+
+        private final int columnCount;
+        private final MatrixWriter writer;
+        private final BitSet present;
+        private UUID studentId;
+        private String studentIdCode;
+        private String indexNumber;
+        private String fullName;
+        private int studentCount;
+
+        private RowAccumulator(int columnCount, MatrixWriter writer) {
+            this.columnCount = columnCount;
+            this.writer = writer;
+            this.present = new BitSet(columnCount);
+        }
+
+        private void start(UUID studentId, String studentIdCode, String indexNumber, String fullName) {
+            this.studentId = studentId;
+            this.studentIdCode = studentIdCode;
+            this.indexNumber = indexNumber;
+            this.fullName = fullName;
+            this.present.clear();
+        }
+
+        private void emit() {
+            if (studentId == null) {
+                return;
+            }
+            try {
+                writer.writeStudent(studentId, studentIdCode, indexNumber, fullName, present, columnCount);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            studentCount++;
+            studentId = null;
+        }
+    }
+
+    private interface MatrixWriter extends Closeable {
+
+        void writeHeader(Integer batchId, Integer subjectId, LocalDate from, LocalDate to, List<LocalDate> dates)
+                throws IOException;
+
+        void writeStudent(UUID studentId, String studentIdCode, String indexNumber, String fullName,
+                BitSet present, int columnCount) throws IOException;
+
+        void writeFooter(int studentCount) throws IOException;
+    }
+
+    /**
+     * {"dates": [...], "students": [{..., "attendance": [true, false, ...],
+     * "presentCount": n, "percentage": p}], "studentCount": n}
+     */
+    private static final class JsonMatrixWriter implements MatrixWriter {
+
+        private final JsonGenerator generator;
+
+        private JsonMatrixWriter(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void writeHeader(Integer batchId, Integer subjectId, LocalDate from, LocalDate to,
+                List<LocalDate> dates) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("batchId", batchId);
+            generator.writeNumberField("subjectId", subjectId);
+            generator.writeStringField("from", from.toString());
+            generator.writeStringField("to", to.toString());
+            generator.writeArrayFieldStart("dates");
+            for (LocalDate date : dates) {
+                generator.writeString(date.toString());
+            }
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("students");
+        }
+
+        @Override
+        public void writeStudent(UUID studentId, String studentIdCode, String indexNumber, String fullName,
+                BitSet present, int columnCount) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("studentId", studentId.toString());
+            generator.writeStringField("studentIdCode", studentIdCode);
+            generator.writeStringField("indexNumber", indexNumber);
+            generator.writeStringField("fullName", fullName);
+            generator.writeArrayFieldStart("attendance");
+            for (int i = 0; i < columnCount; i++) {
+                generator.writeBoolean(present.get(i));
+            }
+            generator.writeEndArray();
+            int presentCount = present.cardinality();
+            generator.writeNumberField("presentCount", presentCount);
+            generator.writeNumberField("percentage", percentage(presentCount, columnCount));
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void writeFooter(int studentCount) throws IOException {
+            generator.writeEndArray();
+            generator.writeNumberField("studentCount", studentCount);
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    /**
+     * One line per student with a P/A cell per date, followed by the present
+     * count and percentage.
+     */
+    private static final class CsvMatrixWriter implements MatrixWriter {
+
+        private final CSVPrinter printer;
+
+        private CsvMatrixWriter(OutputStream out) throws IOException {
+            this.printer = new CSVPrinter(
+                    new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)), CSVFormat.DEFAULT);
+        }
+
+        @Override
+        public void writeHeader(Integer batchId, Integer subjectId, LocalDate from, LocalDate to,
+                List<LocalDate> dates) throws IOException {
+            printer.print("Student ID");
+            printer.print("Index Number");
+            printer.print("Full Name");
+            for (LocalDate date : dates) {
+                printer.print(date);
+            }
+            printer.print("Present");
+            printer.print("Percentage");
+            printer.println();
+        }
+
+        @Override
+        public void writeStudent(UUID studentId, String studentIdCode, String indexNumber, String fullName,
+                BitSet present, int columnCount) throws IOException {
+            printer.print(studentIdCode);
+            printer.print(indexNumber);
+            printer.print(fullName);
+            for (int i = 0; i < columnCount; i++) {
+                printer.print(present.get(i) ? "P" : "A");
+            }
+            int presentCount = present.cardinality();
+            printer.print(presentCount);
+            printer.print(percentage(presentCount, columnCount));
+            printer.println();
+        }
+
+        @Override
+        public void writeFooter(int studentCount) {
+            // Row count is implied by the file
+        }
+
+        @Override
+        public void close() throws IOException {
+            printer.close(true);
+        }
+    }
+}
@@ -3,24 +3,30 @@ package com.usa.attendancesystem.service;
 import com.usa.attendancesystem.dto.*;
 import com.usa.attendancesystem.exception.DuplicateResourceException;
 import com.usa.attendancesystem.exception.ResourceNotFoundException;
-import com.usa.attendancesystem.model.AttendanceRecord;
-import com.usa.attendancesystem.model.AttendanceSession;
+import com.usa.attendancesystem.model.SmsMessageType;
+import com.usa.attendancesystem.model.SmsOutboxMessage;
 import com.usa.attendancesystem.model.Student;
 import com.usa.attendancesystem.model.Subject;
+import com.usa.attendancesystem.repository.AttendanceDailySummaryRepository;
+import com.usa.attendancesystem.repository.AttendanceRecordJdbcRepository;
 import com.usa.attendancesystem.repository.AttendanceRecordRepository;
-import com.usa.attendancesystem.repository.AttendanceSessionRepository;
 import com.usa.attendancesystem.repository.StudentRepository;
 import com.usa.attendancesystem.repository.SubjectRepository;
+import com.usa.attendancesystem.event.AttendanceCheckInEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.*;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
 
 @Service
 @RequiredArgsConstructor
@@ -29,8 +35,12 @@ public class AttendanceService {
     private final StudentRepository studentRepository;
     private final SubjectRepository subjectRepository;
     private final AttendanceRecordRepository attendanceRepository;
-    private final AttendanceSessionRepository sessionRepository;
-    private final SmsService smsService;
+    private final AttendanceRecordJdbcRepository attendanceJdbcRepository;
+    private final AttendanceDailySummaryRepository summaryRepository;
+    private final SessionRosterCache rosterCache;
+    private final SmsOutboxService smsOutboxService;
+    private final AttendanceWriteBehindBuffer writeBehindBuffer;
+    private final ApplicationEventPublisher eventPublisher;
     private final StudentService studentService; // Re-use the mapper from StudentService
 
     @Transactional
@@ -57,110 +67,290 @@ public class AttendanceService {
             throw new IllegalStateException("Student is not enrolled in the selected subject.");
         }
 
-        // 3. Check for duplicate attendance
-        Instant startOfDay = LocalDate.now().atStartOfDay(ZoneOffset.UTC).toInstant();
-        Instant endOfDay = LocalDate.now().plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
-        if (attendanceRepository.hasStudentMarkedAttendanceToday(student.getId(), subject.getId(), startOfDay, endOfDay)) {
+        // 3. Record attendance; the unique (student, subject, date) index rejects duplicates atomically
+        Instant checkInTimestamp = Instant.now();
+        LocalDate attendanceDate = LocalDate.now(ZoneOffset.UTC);
+        int inserted = attendanceRepository.insertIfAbsent(
+                student.getId(), subject.getId(), checkInTimestamp, attendanceDate);
+        if (inserted == 0) {
             throw new DuplicateResourceException("Attendance already marked for this student today.");
         }
+        writeBehindBuffer.recordDirectMarks(List.of(new AttendanceRecordJdbcRepository.NewAttendanceRecord(
+                student.getId(), subject.getId(), checkInTimestamp, attendanceDate)));
+        summaryRepository.recordCheckIns(List.of(new AttendanceDailySummaryRepository.RecordedCheckIn(
+                student.getId(), subject.getId(), attendanceDate, null)));
 
-        // 4. Create and save the record
-        AttendanceRecord record = new AttendanceRecord();
-        record.setStudent(student);
-        record.setSubject(subject);
-        record.setAttendanceTimestamp(Instant.now());
-        attendanceRepository.save(record);
-
-        // 5. Send SMS notification
-        String checkInTime = ZonedDateTime.ofInstant(record.getAttendanceTimestamp(), ZoneId.systemDefault())
+        // 4. Queue SMS notification (delivered by SmsOutboxDispatcher after commit)
+        String checkInTime = ZonedDateTime.ofInstant(checkInTimestamp, ZoneId.systemDefault())
                 .format(DateTimeFormatter.ofPattern("hh:mm a"));
         String message = String.format(
                 "Dear Parent, %s has checked in for the %s class at %s.",
                 student.getFullName(), subject.getName(), checkInTime
         );
-        smsService.sendSms(student.getParentPhone(), message);
+        smsOutboxService.enqueue(student.getParentPhone(), message, SmsMessageType.ATTENDANCE, student.getId());
     }
 
     @Transactional
     public void markAttendanceByIndex(AttendanceMarkByIndexRequest request) {
-        // 1. Find and validate active session
-        AttendanceSession session = sessionRepository.findActiveSessionById(request.sessionId())
-                .orElseThrow(() -> new ResourceNotFoundException("Active session not found with ID: " + request.sessionId()));
+        // 1. Resolve the active session's roster (cached; no entity loading after the first call)
+        SessionRoster roster = rosterCache.getRoster(request.sessionId());
+
+        // 2. Validate eligibility with an O(1) roster lookup
+        RosterStudentDto rosterStudent = roster.find(request.indexNumber());
+        if (rosterStudent == null) {
+            rosterStudent = resolveRosterMiss(roster, request.indexNumber());
+        }
+
+        // 3. Large sessions in write-behind mode buffer the mark and persist it in the background
+        Instant checkInTimestamp = Instant.now();
+        String message = buildSessionCheckInMessage(rosterStudent.fullName(), roster.subjectName(), checkInTimestamp);
+        if (roster.writeBehind() && writeBehindBuffer.tryAccept(roster, rosterStudent, checkInTimestamp, message)) {
+            publishCheckIn(roster, rosterStudent, checkInTimestamp);
+            return;
+        }
+
+        // 4. Record attendance for the session date; a duplicate mark inserts nothing
+        int inserted = attendanceRepository.insertIfAbsent(
+                rosterStudent.id(), roster.subjectId(), checkInTimestamp, roster.sessionDate());
+        if (inserted == 0) {
+            throw new DuplicateResourceException("Attendance already marked for this student today in " + roster.subjectName());
+        }
+        writeBehindBuffer.recordDirectMarks(List.of(new AttendanceRecordJdbcRepository.NewAttendanceRecord(
+                rosterStudent.id(), roster.subjectId(), checkInTimestamp, roster.sessionDate())));
+        summaryRepository.recordCheckIns(List.of(new AttendanceDailySummaryRepository.RecordedCheckIn(
+                rosterStudent.id(), roster.subjectId(), roster.sessionDate(), roster.size())));
+
+        // 5. Queue enhanced SMS notification (delivered by SmsOutboxDispatcher after commit)
+        smsOutboxService.enqueue(rosterStudent.parentPhone(), message, SmsMessageType.ATTENDANCE, rosterStudent.id());
+        publishCheckIn(roster, rosterStudent, checkInTimestamp);
+    }
+
+    /**
+     * Replays a batch of check-ins buffered by an offline kiosk. Each session's
+     * roster is resolved once, index numbers missing from a roster are
+     * re-checked against the database with one query per session (the cached
+     * roster may predate an enrolment) and the rest classified with one more,
+     * and all marks and SMS notifications are written as JDBC batches
+     * in a single transaction. Items never fail the whole request; each gets
+     * its own status. Replaying an already-accepted item reports DUPLICATE.
+     */
+    @Transactional
+    public BulkAttendanceMarkResultDto markAttendanceBulk(List<BulkAttendanceMarkItem> items) {
+        BulkAttendanceItemStatus[] statuses = new BulkAttendanceItemStatus[items.size()];
+
+        // 1. Resolve each distinct session's roster once
+        Map<Long, SessionRoster> rosters = new HashMap<>();
+        for (BulkAttendanceMarkItem item : items) {
+            if (!rosters.containsKey(item.sessionId())) {
+                rosters.put(item.sessionId(), findRoster(item.sessionId()));
+            }
+        }
+
+        // 2. Validate every item against its roster, de-duplicating within the batch
+        Instant now = Instant.now();
+        Set<String> seenIdempotencyKeys = new HashSet<>();
+        Set<String> seenMarks = new HashSet<>();
+        Map<Integer, String> missedIndexNumbers = new TreeMap<>();
+        List<Integer> acceptedPositions = new ArrayList<>();
+        List<RosterStudentDto> acceptedStudents = new ArrayList<>();
+        List<AttendanceRecordJdbcRepository.NewAttendanceRecord> newRecords = new ArrayList<>();
+
+        for (int i = 0; i < items.size(); i++) {
+            BulkAttendanceMarkItem item = items.get(i);
+            SessionRoster roster = rosters.get(item.sessionId());
+            if (roster == null) {
+                statuses[i] = BulkAttendanceItemStatus.SESSION_NOT_FOUND;
+                continue;
+            }
+            if (!seenIdempotencyKeys.add(item.idempotencyKey())) {
+                statuses[i] = BulkAttendanceItemStatus.DUPLICATE;
+                continue;
+            }
+
+            RosterStudentDto rosterStudent = roster.find(item.indexNumber());
+            if (rosterStudent == null) {
+                missedIndexNumbers.put(i, SessionRoster.normalizeIndexNumber(item.indexNumber()));
+                continue;
+            }
+            if (!seenMarks.add(rosterStudent.id() + ":" + roster.subjectId() + ":" + roster.sessionDate())) {
+                statuses[i] = BulkAttendanceItemStatus.DUPLICATE;
+                continue;
+            }
+
+            acceptedPositions.add(i);
+            acceptedStudents.add(rosterStudent);
+            newRecords.add(new AttendanceRecordJdbcRepository.NewAttendanceRecord(
+                    rosterStudent.id(), roster.subjectId(), checkInTimestamp(item.clientTimestamp(), now), roster.sessionDate()));
+        }
+
+        // 3. Re-check roster misses against the database, like a live kiosk mark does, and accept the eligible ones
+        if (!missedIndexNumbers.isEmpty()) {
+            Map<Long, Set<String>> missesBySession = new HashMap<>();
+            missedIndexNumbers.forEach((position, indexNumber) -> missesBySession
+                    .computeIfAbsent(items.get(position).sessionId(), sessionId -> new HashSet<>())
+                    .add(indexNumber));
+            Map<Long, Map<String, RosterStudentDto>> enrolledBySession = new HashMap<>();
+            missesBySession.forEach((sessionId, indexNumbers) -> {
+                SessionRoster roster = rosters.get(sessionId);
+                Map<String, RosterStudentDto> enrolled = new HashMap<>();
+                for (RosterStudentDto student : studentRepository.findRosterStudentsByIndexNumbers(
+                        roster.batchId(), roster.subjectId(), indexNumbers)) {
+                    enrolled.put(SessionRoster.normalizeIndexNumber(student.indexNumber()), student);
+                }
+                if (!enrolled.isEmpty()) {
+                    // The cached roster is stale; the next lookup rebuilds it
+                    rosterCache.invalidate(sessionId);
+                }
+                enrolledBySession.put(sessionId, enrolled);
+            });
+
+            // Tell unknown index numbers apart from students who are not eligible for the session
+            Set<String> stillMissing = new HashSet<>();
+            missedIndexNumbers.forEach((position, indexNumber) -> {
+                if (!enrolledBySession.get(items.get(position).sessionId()).containsKey(indexNumber)) {
+                    stillMissing.add(indexNumber);
+                }
+            });
+            Set<String> existing = stillMissing.isEmpty()
+                    ? Set.of()
+                    : new HashSet<>(studentRepository.findExistingIndexNumbers(stillMissing));
+
+            for (Map.Entry<Integer, String> miss : missedIndexNumbers.entrySet()) {
+                int position = miss.getKey();
+                BulkAttendanceMarkItem item = items.get(position);
+                SessionRoster roster = rosters.get(item.sessionId());
+                RosterStudentDto rosterStudent = enrolledBySession.get(item.sessionId()).get(miss.getValue());
+                if (rosterStudent == null) {
+                    statuses[position] = existing.contains(miss.getValue())
+                            ? BulkAttendanceItemStatus.NOT_ENROLLED
+                            : BulkAttendanceItemStatus.UNKNOWN_INDEX;
+                    continue;
+                }
+                if (!seenMarks.add(rosterStudent.id() + ":" + roster.subjectId() + ":" + roster.sessionDate())) {
+                    statuses[position] = BulkAttendanceItemStatus.DUPLICATE;
+                    continue;
+                }
+                acceptedPositions.add(position);
+                acceptedStudents.add(rosterStudent);
+                newRecords.add(new AttendanceRecordJdbcRepository.NewAttendanceRecord(
+                        rosterStudent.id(), roster.subjectId(), checkInTimestamp(item.clientTimestamp(), now), roster.sessionDate()));
+            }
+        }
+
+        // 4. Write all marks as one JDBC batch; a zero row count means it was already recorded
+        int[] rowCounts = attendanceJdbcRepository.insertAllIfAbsent(newRecords);
+        List<SmsOutboxMessage> notifications = new ArrayList<>();
+        List<AttendanceDailySummaryRepository.RecordedCheckIn> recorded = new ArrayList<>();
+        List<AttendanceRecordJdbcRepository.NewAttendanceRecord> written = new ArrayList<>();
+        for (int j = 0; j < rowCounts.length; j++) {
+            int position = acceptedPositions.get(j);
+            if (rowCounts[j] == 0) {
+                statuses[position] = BulkAttendanceItemStatus.DUPLICATE;
+                continue;
+            }
+            statuses[position] = BulkAttendanceItemStatus.OK;
+            written.add(newRecords.get(j));
+
+            SessionRoster roster = rosters.get(items.get(position).sessionId());
+            RosterStudentDto rosterStudent = acceptedStudents.get(j);
+            recorded.add(new AttendanceDailySummaryRepository.RecordedCheckIn(
+                    rosterStudent.id(), roster.subjectId(), roster.sessionDate(), roster.size()));
+            notifications.add(new SmsOutboxMessage(rosterStudent.parentPhone(), buildSessionCheckInMessage(
+                    rosterStudent.fullName(), roster.subjectName(), newRecords.get(j).attendanceTimestamp()),
+                    SmsMessageType.ATTENDANCE, rosterStudent.id()));
+            publishCheckIn(roster, rosterStudent, newRecords.get(j).attendanceTimestamp());
+        }
 
-        // 2. Find student by index number
-        Student student = studentRepository.findByIndexNumber(request.indexNumber().trim().toUpperCase())
-                .orElseThrow(() -> new ResourceNotFoundException("Student with index number '" + request.indexNumber() + "' not found."));
+        // 5. Update the daily summary and queue the SMS notifications for accepted marks, one statement each
+        writeBehindBuffer.recordDirectMarks(written);
+        summaryRepository.recordCheckIns(recorded);
+        smsOutboxService.enqueueAll(notifications);
+
+        List<BulkAttendanceItemResultDto> results = new ArrayList<>(items.size());
+        int accepted = 0;
+        int duplicates = 0;
+        for (int i = 0; i < items.size(); i++) {
+            BulkAttendanceMarkItem item = items.get(i);
+            results.add(new BulkAttendanceItemResultDto(item.idempotencyKey(), item.sessionId(), item.indexNumber(), statuses[i]));
+            if (statuses[i] == BulkAttendanceItemStatus.OK) {
+                accepted++;
+            } else if (statuses[i] == BulkAttendanceItemStatus.DUPLICATE) {
+                duplicates++;
+            }
+        }
+        return new BulkAttendanceMarkResultDto(accepted, duplicates, items.size() - accepted - duplicates, results);
+    }
+
+    private SessionRoster findRoster(Long sessionId) {
+        try {
+            return rosterCache.getRoster(sessionId);
+        } catch (ResourceNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Uses the kiosk's own tap time for replayed check-ins, but never a time in the future.
+     */
+    private Instant checkInTimestamp(Instant clientTimestamp, Instant now) {
+        return clientTimestamp == null || clientTimestamp.isAfter(now) ? now : clientTimestamp;
+    }
+
+    /**
+     * Feeds live attendance streams; delivered to listeners after commit.
+     */
+    private void publishCheckIn(SessionRoster roster, RosterStudentDto rosterStudent, Instant checkInTimestamp) {
+        eventPublisher.publishEvent(new AttendanceCheckInEvent(
+                roster.sessionId(), rosterStudent.id(), rosterStudent.fullName(), checkInTimestamp));
+    }
+
+    private String buildSessionCheckInMessage(String fullName, String subjectName, Instant checkInTimestamp) {
+        String checkInTime = ZonedDateTime.ofInstant(checkInTimestamp, ZoneId.systemDefault())
+                .format(DateTimeFormatter.ofPattern("hh:mm a"));
+        return String.format(
+                "Dear Parent, your son %s has checked in for %s class at %s today. - Institute",
+                fullName, subjectName, checkInTime
+        );
+    }
+
+    /**
+     * Explains why an index number is not on a session roster. This only runs
+     * on the rare miss path, so it is allowed to load the Student entity. If the
+     * student turns out to be eligible the cached roster was stale: it is
+     * dropped and the student is accepted.
+     */
+    private RosterStudentDto resolveRosterMiss(SessionRoster roster, String indexNumber) {
+        Student student = studentRepository.findByIndexNumber(SessionRoster.normalizeIndexNumber(indexNumber))
+                .orElseThrow(() -> new ResourceNotFoundException("Student with index number '" + indexNumber + "' not found."));
 
-        // 3. Perform validations
         if (!student.isActive()) {
             throw new IllegalStateException("Student account is not active.");
         }
 
         // Validate student belongs to session batch
-        if (!student.getBatch().getId().equals(session.getBatch().getId())) {
+        if (!student.getBatch().getId().equals(roster.batchId())) {
             throw new IllegalStateException("Student is not enrolled in this session's batch.");
         }
 
         // Validate student is enrolled in session subject
         boolean isEnrolledInSubject = student.getSubjects().stream()
-                .anyMatch(s -> s.getId().equals(session.getSubject().getId()));
+                .anyMatch(s -> s.getId().equals(roster.subjectId()));
         if (!isEnrolledInSubject) {
             throw new IllegalStateException("Student is not enrolled in this session's subject.");
         }
 
-        // 4. Check for duplicate attendance for this session date
-        Instant startOfDay = session.getSessionDate().atStartOfDay(ZoneOffset.UTC).toInstant();
-        Instant endOfDay = session.getSessionDate().plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
-        if (attendanceRepository.hasStudentMarkedAttendanceToday(student.getId(), session.getSubject().getId(), startOfDay, endOfDay)) {
-            throw new DuplicateResourceException("Attendance already marked for this student today in " + session.getSubject().getName());
-        }
-
-        // 5. Create and save the record
-        AttendanceRecord record = new AttendanceRecord();
-        record.setStudent(student);
-        record.setSubject(session.getSubject());
-        record.setAttendanceTimestamp(Instant.now());
-        attendanceRepository.save(record);
-
-        // 6. Send enhanced SMS notification
-        String checkInTime = ZonedDateTime.ofInstant(record.getAttendanceTimestamp(), ZoneId.systemDefault())
-                .format(DateTimeFormatter.ofPattern("hh:mm a"));
-        String message = String.format(
-                "Dear Parent, your son %s has checked in for %s class at %s today. - Institute",
-                student.getFullName(), session.getSubject().getName(), checkInTime
-        );
-        smsService.sendSms(student.getParentPhone(), message);
+        rosterCache.invalidate(roster.sessionId());
+        return new RosterStudentDto(student.getId(), student.getIndexNumber(), student.getFullName(), student.getParentPhone());
     }
 
     @Transactional(readOnly = true)
     public AttendanceReportDto getAttendanceReport(LocalDate date, Integer batchId, Integer subjectId) {
-        // 1. Get all students who should be in the class
-        List<Student> enrolledStudents = studentRepository.findActiveStudentsByBatchAndSubject(batchId, subjectId);
-
-        // 2. Get all attendance records for that day
-        Instant startOfDay = date.atStartOfDay(ZoneOffset.UTC).toInstant();
-        Instant endOfDay = date.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
-        List<AttendanceRecord> presentRecords = attendanceRepository.findBySubjectAndDateRange(subjectId, startOfDay, endOfDay);
-
-        Set<UUID> presentStudentIds = presentRecords.stream()
-                .map(ar -> ar.getStudent().getId())
-                .collect(Collectors.toSet());
-
-        // 3. Map present students to DTO, including check-in time
-        List<PresentStudentDto> presentStudentDtos = presentRecords.stream()
-                .map(ar -> new PresentStudentDto(
-                ar.getStudent().getId(),
-                ar.getStudent().getStudentIdCode(),
-                ar.getStudent().getFullName(),
-                ar.getAttendanceTimestamp()
-        ))
-                .toList();
-
-        // 4. Filter the enrolled list to find absent students and map to DTO
-        List<StudentDto> absentStudentDtos = enrolledStudents.stream()
-                .filter(student -> !presentStudentIds.contains(student.getId()))
-                .map(studentService::mapToStudentDto) // This now works correctly
-                .toList();
+        // 1. Students marked present that day, projected straight into DTOs
+        List<PresentStudentDto> presentStudentDtos = attendanceRepository.findPresentStudentsBySubjectAndDate(subjectId, date);
+
+        // 2. Enrolled students with no mark that day, with batch and subjects in the same query
+        List<StudentDto> absentStudentDtos = studentService.toStudentDtos(
+                studentRepository.findAbsentStudentRows(batchId, subjectId, date));
 
         return new AttendanceReportDto(presentStudentDtos, absentStudentDtos);
     }
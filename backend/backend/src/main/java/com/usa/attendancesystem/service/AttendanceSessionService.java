@@ -21,6 +21,8 @@ public class AttendanceSessionService {
     private final BatchRepository batchRepository;
     private final SubjectRepository subjectRepository;
     private final AdminRepository adminRepository;
+    private final SessionRosterCache rosterCache;
+    private final AttendanceDailySummaryRepository summaryRepository;
 
     @Transactional
     public AttendanceSessionDto createSession(AttendanceSessionCreateRequest request, Authentication auth) {
@@ -44,7 +46,10 @@ public class AttendanceSessionService {
 
         // Create new session
         AttendanceSession session = new AttendanceSession(batch, subject, request.sessionDate(), admin);
+        session.setWriteBehind(Boolean.TRUE.equals(request.writeBehind()));
         session = sessionRepository.save(session);
+        rosterCache.preload(session.getId());
+        summaryRepository.seedDay(session.getSessionDate(), batch.getId(), subject.getId());
 
         // Convert to DTO
         return new AttendanceSessionDto(
@@ -55,7 +60,8 @@ public class AttendanceSessionService {
                 subject.getName(),
                 session.getSessionDate(),
                 session.isActive(),
-                session.getCreatedAt()
+                session.getCreatedAt(),
+                session.isWriteBehind()
         );
     }
 
@@ -89,6 +95,22 @@ public class AttendanceSessionService {
 
         session.setActive(false);
         sessionRepository.save(session);
+        rosterCache.invalidate(sessionId);
+    }
+
+    /**
+     * Switches write-behind marking on or off for a session. Check-ins already
+     * buffered are still flushed normally.
+     */
+    @Transactional
+    public AttendanceSessionDto setWriteBehind(Long sessionId, boolean writeBehind) {
+        AttendanceSession session = sessionRepository.findById(sessionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Session not found with ID: " + sessionId));
+
+        session.setWriteBehind(writeBehind);
+        sessionRepository.save(session);
+        rosterCache.invalidate(sessionId);
+        return mapToDto(session);
     }
 
     private AttendanceSessionDto mapToDto(AttendanceSession session) {
@@ -100,7 +122,8 @@ public class AttendanceSessionService {
                 session.getSubject().getName(),
                 session.getSessionDate(),
                 session.isActive(),
-                session.getCreatedAt()
+                session.getCreatedAt(),
+                session.isWriteBehind()
         );
     }
 }
@@ -0,0 +1,244 @@
+package com.usa.attendancesystem.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.usa.attendancesystem.dto.AttendanceStreamCheckInDto;
+import com.usa.attendancesystem.dto.AttendanceStreamSnapshotDto;
+import com.usa.attendancesystem.dto.PresentStudentDto;
+import com.usa.attendancesystem.dto.StudentSubjectRowDto;
+import com.usa.attendancesystem.event.AttendanceCheckInEvent;
+import com.usa.attendancesystem.repository.AttendanceRecordRepository;
+import com.usa.attendancesystem.repository.StudentRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pushes live check-ins for an attendance session to admin dashboards over
+ * Server-Sent Events. A subscriber gets one "snapshot" event and then a small
+ * "check-in" event per accepted mark, fed straight from the mark path, instead
+ * of polling the full attendance report.
+ *
+ * <p>
+ * A subscriber is registered before its snapshot is read, and the check-ins
+ * that arrive meanwhile are held back and sent right after the snapshot, so
+ * none falls between the two. The present count of a session is kept once
+ * per stream and only ever grows, so a new subscriber never moves the count
+ * other dashboards see.
+ */
+@Service
+@Slf4j
+public class AttendanceStreamService {
+
+    private final SessionRosterCache rosterCache;
+    private final AttendanceRecordRepository attendanceRepository;
+    private final StudentRepository studentRepository;
+    private final AttendanceWriteBehindBuffer writeBehindBuffer;
+    private final long emitterTimeoutMs;
+
+    private final ConcurrentMap<Long, SessionStream> streams = new ConcurrentHashMap<>();
+
+    // Fan-out runs off the request thread so a slow dashboard can never delay a kiosk check-in
+    private final ExecutorService fanOutExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "attendance-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // All fields but emitters are guarded by the stream's monitor
+    private static final class SessionStream {
+
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        // Subscribers whose snapshot is not sent yet, with the check-ins they must get after it
+        private final Map<SseEmitter, List<AttendanceStreamCheckInDto>> awaitingSnapshot = new HashMap<>();
+        private final Set<UUID> presentStudentIds = new HashSet<>();
+        private boolean seeded;
+    }
+
+    public AttendanceStreamService(
+            SessionRosterCache rosterCache,
+            AttendanceRecordRepository attendanceRepository,
+            StudentRepository studentRepository,
+            AttendanceWriteBehindBuffer writeBehindBuffer,
+            @Value("${attendance.stream.timeout-ms:1800000}") long emitterTimeoutMs) {
+        this.rosterCache = rosterCache;
+        this.attendanceRepository = attendanceRepository;
+        this.studentRepository = studentRepository;
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+    }
+
+    /**
+     * Opens a live stream for an active session and sends the current snapshot.
+     */
+    @Transactional(readOnly = true)
+    public SseEmitter subscribe(Long sessionId) {
+        SessionRoster roster = rosterCache.getRoster(sessionId);
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        SessionStream stream = streams.compute(sessionId, (id, existing) -> {
+            SessionStream current = existing != null ? existing : new SessionStream();
+            synchronized (current) {
+                current.awaitingSnapshot.put(emitter, new ArrayList<>());
+            }
+            return current;
+        });
+        emitter.onCompletion(() -> remove(sessionId, emitter));
+        emitter.onTimeout(() -> remove(sessionId, emitter));
+        emitter.onError(error -> remove(sessionId, emitter));
+
+        List<PresentStudentDto> presentStudents = findPresentStudents(roster);
+        Set<UUID> inSnapshot = new HashSet<>();
+        presentStudents.forEach(student -> inSnapshot.add(student.id()));
+
+        synchronized (stream) {
+            List<AttendanceStreamCheckInDto> missed = stream.awaitingSnapshot.remove(emitter);
+            if (missed == null) {
+                // Went away while the snapshot was read
+                return emitter;
+            }
+            if (!stream.seeded) {
+                stream.presentStudentIds.addAll(inSnapshot);
+                stream.seeded = true;
+            }
+
+            // Check-ins that reached the snapshot are not sent again; the rest follow it, counted in order
+            List<AttendanceStreamCheckInDto> catchUp = missed.stream()
+                    .filter(checkIn -> !inSnapshot.contains(checkIn.studentId()))
+                    .toList();
+            int presentCount = stream.presentStudentIds.size() - catchUp.size();
+            List<SseEmitter.SseEventBuilder> events = new ArrayList<>(catchUp.size() + 1);
+            events.add(SseEmitter.event().name("snapshot").data(
+                    new AttendanceStreamSnapshotDto(sessionId, roster.size(), presentCount, presentStudents)));
+            for (AttendanceStreamCheckInDto checkIn : catchUp) {
+                events.add(SseEmitter.event().name("check-in").data(new AttendanceStreamCheckInDto(
+                        checkIn.sessionId(), checkIn.studentId(), checkIn.fullName(), checkIn.checkInTime(), ++presentCount)));
+            }
+
+            // Queued behind earlier fan-outs and ahead of later ones, so the subscriber sees events in order
+            stream.emitters.add(emitter);
+            fanOutExecutor.execute(() -> {
+                for (SseEmitter.SseEventBuilder event : events) {
+                    if (!send(sessionId, emitter, event)) {
+                        return;
+                    }
+                }
+            });
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCheckIn(AttendanceCheckInEvent event) {
+        SessionStream stream = streams.get(event.sessionId());
+        if (stream == null) {
+            return;
+        }
+
+        AttendanceStreamCheckInDto payload;
+        List<SseEmitter> recipients;
+        synchronized (stream) {
+            if (!stream.presentStudentIds.add(event.studentId())) {
+                return;
+            }
+            payload = new AttendanceStreamCheckInDto(event.sessionId(), event.studentId(), event.fullName(),
+                    event.checkInTime(), stream.presentStudentIds.size());
+            stream.awaitingSnapshot.values().forEach(missed -> missed.add(payload));
+            recipients = List.copyOf(stream.emitters);
+        }
+        SseEmitter.SseEventBuilder checkIn = SseEmitter.event().name("check-in").data(payload);
+        fanOutExecutor.execute(() -> recipients.forEach(emitter -> send(event.sessionId(), emitter, checkIn)));
+    }
+
+    /**
+     * Keeps idle connections open through proxies and prunes dashboards that went away.
+     */
+    @Scheduled(fixedDelayString = "${attendance.stream.heartbeat-interval-ms:30000}")
+    public void sendHeartbeats() {
+        streams.forEach((sessionId, stream) -> fanOutExecutor.execute(() -> stream.emitters
+                .forEach(emitter -> send(sessionId, emitter, SseEmitter.event().comment("heartbeat")))));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fanOutExecutor.shutdownNow();
+        streams.values().forEach(stream -> stream.emitters.forEach(SseEmitter::complete));
+    }
+
+    /**
+     * Students already present: recorded marks plus write-behind check-ins not
+     * flushed yet. The buffer is read first, so a check-in flushed in between
+     * is found by the query rather than missed by both.
+     */
+    private List<PresentStudentDto> findPresentStudents(SessionRoster roster) {
+        List<BufferedCheckIn> pending = roster.writeBehind()
+                ? writeBehindBuffer.pendingCheckIns(roster.sessionId())
+                : List.of();
+        Map<UUID, PresentStudentDto> present = new LinkedHashMap<>();
+        attendanceRepository.findPresentStudentsByBatchSubjectAndDate(
+                roster.batchId(), roster.subjectId(), roster.sessionDate())
+                .forEach(student -> present.putIfAbsent(student.id(), student));
+        if (pending.isEmpty()) {
+            return new ArrayList<>(present.values());
+        }
+
+        Map<UUID, StudentSubjectRowDto> students = new HashMap<>();
+        studentRepository.findStudentRowsByIds(pending.stream().map(BufferedCheckIn::studentId).toList())
+                .forEach(row -> students.putIfAbsent(row.id(), row));
+        for (BufferedCheckIn checkIn : pending) {
+            StudentSubjectRowDto student = students.get(checkIn.studentId());
+            if (student != null) {
+                present.putIfAbsent(checkIn.studentId(), new PresentStudentDto(
+                        student.id(), student.studentIdCode(), student.fullName(), checkIn.attendanceTimestamp()));
+            }
+        }
+        List<PresentStudentDto> presentStudents = new ArrayList<>(present.values());
+        presentStudents.sort(Comparator.comparing(PresentStudentDto::checkInTime));
+        return presentStudents;
+    }
+
+    /**
+     * @return false if the subscriber was dropped
+     */
+    private boolean send(Long sessionId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping attendance stream subscriber for session {}: {}", sessionId, e.getMessage());
+            remove(sessionId, emitter);
+            return false;
+        }
+    }
+
+    private void remove(Long sessionId, SseEmitter emitter) {
+        streams.computeIfPresent(sessionId, (id, stream) -> {
+            synchronized (stream) {
+                stream.emitters.remove(emitter);
+                stream.awaitingSnapshot.remove(emitter);
+                return stream.emitters.isEmpty() && stream.awaitingSnapshot.isEmpty() ? null : stream;
+            }
+        });
+    }
+}
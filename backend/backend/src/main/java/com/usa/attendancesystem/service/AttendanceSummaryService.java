@@ -0,0 +1,64 @@
+package com.usa.attendancesystem.service;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.usa.attendancesystem.dto.AttendanceDailySummaryDto;
+import com.usa.attendancesystem.repository.AttendanceDailySummaryRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Dashboard reads over attendance_daily_summary, and the nightly job that
+ * repairs any day whose incremental counts drifted from attendance_records
+ * (e.g. marks removed by hand, or a student deleted). "Today" is the UTC
+ * date, like the attendance_date the mark path writes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AttendanceSummaryService {
+
+    private final AttendanceDailySummaryRepository summaryRepository;
+
+    @Value("${attendance.summary.reconcile-days:7}")
+    private int reconcileDays;
+
+    /**
+     * Daily counts for a batch over a date range, for one subject or for all
+     * of the batch's subjects when subjectId is null.
+     */
+    @Transactional(readOnly = true)
+    public List<AttendanceDailySummaryDto> getSummary(Integer batchId, Integer subjectId, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (subjectId == null) {
+            return summaryRepository.findByBatch(batchId, from, to);
+        }
+        return summaryRepository.findByBatchAndSubject(batchId, subjectId, from, to);
+    }
+
+    @Transactional(readOnly = true)
+    public List<AttendanceDailySummaryDto> getTodaysSummary() {
+        return summaryRepository.findByDate(LocalDate.now(ZoneOffset.UTC));
+    }
+
+    @Scheduled(cron = "${attendance.summary.reconcile-cron:0 30 2 * * *}")
+    @Transactional
+    public void reconcileRecentDays() {
+        LocalDate to = LocalDate.now(ZoneOffset.UTC);
+        LocalDate from = to.minusDays(reconcileDays);
+        int corrected = summaryRepository.reconcile(from, to);
+        if (corrected > 0) {
+            log.warn("Corrected {} attendance summary rows between {} and {}", corrected, from, to);
+        }
+    }
+}
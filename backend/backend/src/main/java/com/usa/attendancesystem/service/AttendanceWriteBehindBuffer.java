@@ -0,0 +1,332 @@
+package com.usa.attendancesystem.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.usa.attendancesystem.dto.RosterStudentDto;
+import com.usa.attendancesystem.exception.DuplicateResourceException;
+import com.usa.attendancesystem.model.SmsMessageType;
+import com.usa.attendancesystem.model.SmsOutboxMessage;
+import com.usa.attendancesystem.repository.AttendanceDailySummaryRepository;
+import com.usa.attendancesystem.repository.AttendanceRecordJdbcRepository;
+import com.usa.attendancesystem.repository.AttendanceRecordRepository;
+import com.usa.attendancesystem.util.DataAccessFailures;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-behind marking for sessions with {@code writeBehind} enabled. An
+ * accepted check-in is appended to the fsync'd {@link AttendanceJournal} and
+ * to a bounded in-memory ring buffer, and the kiosk is answered immediately. A
+ * flusher drains the buffer every few hundred milliseconds and writes the
+ * marks and their SMS notifications to Postgres in batched inserts.
+ *
+ * Duplicates are rejected from an in-memory set of students already checked in
+ * per session, seeded once from the database and the check-ins still
+ * buffered, and kept current by the mark paths that write straight to the
+ * database. The unique attendance index still guards the final insert, so a
+ * replayed entry can never double-mark.
+ *
+ * <p>
+ * A batch that fails is written again one check-in at a time, so a single
+ * bad row cannot hold back the rest. Check-ins that still fail are parked in
+ * the journal's parked file and logged; if the database itself is down,
+ * everything waits for the next tick instead.
+ */
+@Service
+@Slf4j
+public class AttendanceWriteBehindBuffer {
+
+    private final AttendanceJournal journal;
+    private final AttendanceRecordRepository attendanceRepository;
+    private final AttendanceRecordJdbcRepository attendanceJdbcRepository;
+    private final AttendanceDailySummaryRepository summaryRepository;
+    private final SmsOutboxService smsOutboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<BufferedCheckIn> buffer;
+    private final int flushBatchSize;
+
+    private final ConcurrentMap<Long, SessionCheckIns> checkInsBySession = new ConcurrentHashMap<>();
+    private final Object appendLock = new Object();
+
+    // Check-ins to write before anything new in the buffer; only touched by synchronized methods
+    private final Deque<BufferedCheckIn> carryOver = new ArrayDeque<>();
+
+    private record SessionCheckIns(Integer subjectId, LocalDate sessionDate, Set<UUID> studentIds) {
+
+    }
+
+    public AttendanceWriteBehindBuffer(
+            AttendanceJournal journal,
+            AttendanceRecordRepository attendanceRepository,
+            AttendanceRecordJdbcRepository attendanceJdbcRepository,
+            AttendanceDailySummaryRepository summaryRepository,
+            SmsOutboxService smsOutboxService,
+            PlatformTransactionManager transactionManager,
+            @Value("${attendance.write-behind.buffer-capacity:10000}") int bufferCapacity,
+            @Value("${attendance.write-behind.flush-batch-size:500}") int flushBatchSize) {
+        this.journal = journal;
+        this.attendanceRepository = attendanceRepository;
+        this.attendanceJdbcRepository = attendanceJdbcRepository;
+        this.summaryRepository = summaryRepository;
+        this.smsOutboxService = smsOutboxService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.flushBatchSize = flushBatchSize;
+    }
+
+    /**
+     * Accepts a check-in without touching the database.
+     *
+     * @return false if the buffer is full, in which case the caller should
+     * record the mark synchronously instead
+     * @throws DuplicateResourceException if the student already checked in to this session
+     */
+    public boolean tryAccept(SessionRoster roster, RosterStudentDto student, Instant checkInTimestamp, String message) {
+        Set<UUID> checkedIn = checkedInStudents(roster);
+        if (!checkedIn.add(student.id())) {
+            throw new DuplicateResourceException("Attendance already marked for this student today in " + roster.subjectName());
+        }
+
+        synchronized (appendLock) {
+            if (buffer.remainingCapacity() == 0) {
+                checkedIn.remove(student.id());
+                log.warn("Write-behind buffer full; recording check-in for session {} synchronously", roster.sessionId());
+                return false;
+            }
+            BufferedCheckIn checkIn = new BufferedCheckIn(
+                    journal.nextSequence(),
+                    roster.sessionId(),
+                    student.id(),
+                    roster.subjectId(),
+                    roster.sessionDate(),
+                    checkInTimestamp,
+                    student.parentPhone(),
+                    message
+            );
+            try {
+                journal.append(checkIn);
+            } catch (RuntimeException e) {
+                checkedIn.remove(student.id());
+                throw e;
+            }
+            buffer.add(checkIn);
+        }
+        return true;
+    }
+
+    /**
+     * Records marks the other mark paths write straight to the database, so a
+     * kiosk check-in for the same student in a write-behind session is
+     * rejected as a duplicate rather than accepted and then skipped by the
+     * flush. Call it in the transaction that writes the marks; they are
+     * forgotten again if it rolls back.
+     */
+    public void recordDirectMarks(Collection<AttendanceRecordJdbcRepository.NewAttendanceRecord> marks) {
+        List<Runnable> undo = new ArrayList<>();
+        for (AttendanceRecordJdbcRepository.NewAttendanceRecord mark : marks) {
+            for (SessionCheckIns checkIns : checkInsBySession.values()) {
+                if (checkIns.subjectId().equals(mark.subjectId()) && checkIns.sessionDate().equals(mark.attendanceDate())
+                        && checkIns.studentIds().add(mark.studentId())) {
+                    undo.add(() -> checkIns.studentIds().remove(mark.studentId()));
+                }
+            }
+        }
+        if (undo.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    undo.forEach(Runnable::run);
+                }
+            }
+        });
+    }
+
+    /**
+     * Check-ins accepted for a session that are not in the database yet, in
+     * the order they were accepted. Waits for a flush in progress, so a
+     * check-in that is not returned here is visible to any query run after.
+     */
+    public synchronized List<BufferedCheckIn> pendingCheckIns(Long sessionId) {
+        List<BufferedCheckIn> pending = new ArrayList<>();
+        for (BufferedCheckIn checkIn : carryOver) {
+            if (checkIn.sessionId().equals(sessionId)) {
+                pending.add(checkIn);
+            }
+        }
+        for (BufferedCheckIn checkIn : buffer) {
+            if (checkIn.sessionId().equals(sessionId)) {
+                pending.add(checkIn);
+            }
+        }
+        return pending;
+    }
+
+    @Scheduled(fixedDelayString = "${attendance.write-behind.flush-interval-ms:250}")
+    public synchronized void flush() {
+        while (true) {
+            List<BufferedCheckIn> batch = new ArrayList<>(flushBatchSize);
+            while (!carryOver.isEmpty() && batch.size() < flushBatchSize) {
+                batch.add(carryOver.pollFirst());
+            }
+            buffer.drainTo(batch, flushBatchSize - batch.size());
+            if (batch.isEmpty()) {
+                evictPastSessions();
+                return;
+            }
+
+            if (!write(batch) || batch.size() < flushBatchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Replays journaled check-ins that were accepted but never confirmed as
+     * flushed, e.g. because the server crashed. Runs while the bean is
+     * initialized, before the flusher is scheduled or any kiosk request is
+     * served, so replayed entries are always written ahead of new ones. If
+     * the database is not reachable yet they stay queued for the flusher.
+     */
+    @PostConstruct
+    synchronized void replayJournal() {
+        List<BufferedCheckIn> unflushed = journal.readUnflushed();
+        if (unflushed.isEmpty()) {
+            return;
+        }
+        log.info("Replaying {} unflushed check-ins from the attendance journal", unflushed.size());
+        carryOver.addAll(unflushed);
+        flush();
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Writes a batch, falling back to one check-in at a time if it fails.
+     *
+     * @return false if the database could not be reached; the unwritten
+     * check-ins are queued again, ahead of anything newer
+     */
+    private boolean write(List<BufferedCheckIn> batch) {
+        try {
+            writeBatch(batch);
+            journal.markFlushed(batch.stream().map(BufferedCheckIn::sequence).toList());
+            return true;
+        } catch (RuntimeException e) {
+            if (DataAccessFailures.isTransient(e)) {
+                log.error("Failed to flush {} buffered check-ins, will retry: {}", batch.size(), e.getMessage());
+                requeue(batch);
+                return false;
+            }
+            log.warn("Failed to flush {} buffered check-ins, writing them one by one: {}", batch.size(), e.getMessage());
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            BufferedCheckIn checkIn = batch.get(i);
+            try {
+                writeBatch(List.of(checkIn));
+            } catch (RuntimeException e) {
+                if (DataAccessFailures.isTransient(e)) {
+                    log.error("Failed to flush buffered check-ins, will retry: {}", e.getMessage());
+                    requeue(batch.subList(i, batch.size()));
+                    return false;
+                }
+                log.error("Parking check-in #{} of student {} for session {}, which cannot be written: {}",
+                        checkIn.sequence(), checkIn.studentId(), checkIn.sessionId(), e.getMessage());
+                journal.park(checkIn, e.getMessage());
+                forget(checkIn);
+            }
+            journal.markFlushed(List.of(checkIn.sequence()));
+        }
+        return true;
+    }
+
+    private void requeue(List<BufferedCheckIn> checkIns) {
+        for (int i = checkIns.size() - 1; i >= 0; i--) {
+            carryOver.addFirst(checkIns.get(i));
+        }
+    }
+
+    /**
+     * Lets a student whose check-in was parked check in again.
+     */
+    private void forget(BufferedCheckIn checkIn) {
+        SessionCheckIns checkIns = checkInsBySession.get(checkIn.sessionId());
+        if (checkIns != null) {
+            checkIns.studentIds().remove(checkIn.studentId());
+        }
+    }
+
+    private void writeBatch(List<BufferedCheckIn> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<AttendanceRecordJdbcRepository.NewAttendanceRecord> records = batch.stream()
+                    .map(checkIn -> new AttendanceRecordJdbcRepository.NewAttendanceRecord(
+                    checkIn.studentId(), checkIn.subjectId(), checkIn.attendanceTimestamp(), checkIn.attendanceDate()))
+                    .toList();
+            int[] rowCounts = attendanceJdbcRepository.insertAllIfAbsent(records);
+
+            // Only count and notify marks that were actually recorded, so a replay never does either twice
+            List<SmsOutboxMessage> notifications = new ArrayList<>();
+            List<AttendanceDailySummaryRepository.RecordedCheckIn> recorded = new ArrayList<>();
+            for (int i = 0; i < rowCounts.length; i++) {
+                if (rowCounts[i] > 0) {
+                    BufferedCheckIn checkIn = batch.get(i);
+                    notifications.add(new SmsOutboxMessage(
+                            checkIn.parentPhone(), checkIn.message(), SmsMessageType.ATTENDANCE, checkIn.studentId()));
+                    recorded.add(new AttendanceDailySummaryRepository.RecordedCheckIn(
+                            checkIn.studentId(), checkIn.subjectId(), checkIn.attendanceDate(), null));
+                }
+            }
+            summaryRepository.recordCheckIns(recorded);
+            smsOutboxService.enqueueAll(notifications);
+        });
+    }
+
+    private Set<UUID> checkedInStudents(SessionRoster roster) {
+        SessionCheckIns seeded = checkInsBySession.get(roster.sessionId());
+        if (seeded != null) {
+            return seeded.studentIds();
+        }
+
+        // Seeded outside the map's lock: reading the pending check-ins waits for a flush in progress
+        Set<UUID> studentIds = ConcurrentHashMap.newKeySet();
+        studentIds.addAll(attendanceRepository.findStudentIdsBySubjectAndDate(roster.subjectId(), roster.sessionDate()));
+        // Check-ins replayed from the journal may still be waiting for the database
+        pendingCheckIns(roster.sessionId()).forEach(checkIn -> studentIds.add(checkIn.studentId()));
+        return checkInsBySession.computeIfAbsent(roster.sessionId(),
+                sessionId -> new SessionCheckIns(roster.subjectId(), roster.sessionDate(), studentIds)).studentIds();
+    }
+
+    private void evictPastSessions() {
+        LocalDate yesterday = LocalDate.now(ZoneOffset.UTC).minusDays(1);
+        checkInsBySession.values().removeIf(checkIns -> checkIns.sessionDate().isBefore(yesterday));
+    }
+}
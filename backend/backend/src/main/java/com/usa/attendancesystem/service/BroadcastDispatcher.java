@@ -0,0 +1,204 @@
+package com.usa.attendancesystem.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.usa.attendancesystem.dto.BroadcastJobDto;
+import com.usa.attendancesystem.model.BroadcastJobStatus;
+import com.usa.attendancesystem.model.SmsMessageType;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends broadcasts in the background, one virtual thread per message, so the
+ * request that starts a broadcast returns at once with a job id to poll.
+ * Sends are limited, across every running broadcast, to a number in flight at
+ * once and a number started per second, matching what the SMS provider
+ * account allows.
+ *
+ * <p>
+ * Jobs are kept in memory only: a restart forgets them, along with the
+ * messages of a broadcast that had not been sent yet.
+ */
+@Component
+@Slf4j
+public class BroadcastDispatcher implements AutoCloseable {
+
+    private final SmsService smsService;
+    private final SmsOutboxService outboxService;
+    private final SmsStatusService statusService;
+    private final Semaphore inFlight;
+    private final SmsRateLimiter rateLimiter;
+    private final Duration jobRetention;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ConcurrentMap<UUID, Job> jobs = new ConcurrentHashMap<>();
+
+    public BroadcastDispatcher(
+            SmsService smsService,
+            SmsOutboxService outboxService,
+            SmsStatusService statusService,
+            @Value("${sms.broadcast.max-concurrency:16}") int maxConcurrency,
+            @Value("${sms.broadcast.messages-per-second:10}") double messagesPerSecond,
+            @Value("${sms.broadcast.burst:10}") int burst,
+            @Value("${sms.broadcast.job-retention-minutes:60}") long jobRetentionMinutes) {
+        this.smsService = smsService;
+        this.outboxService = outboxService;
+        this.statusService = statusService;
+        this.inFlight = new Semaphore(Math.max(maxConcurrency, 1));
+        this.rateLimiter = new SmsRateLimiter(messagesPerSecond, burst);
+        this.jobRetention = Duration.ofMinutes(jobRetentionMinutes);
+    }
+
+    private static final class Job {
+
+        private final UUID id = UUID.randomUUID();
+        private final Instant createdAt = Instant.now();
+        private final int totalMessages;
+        private final AtomicInteger sent = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger queuedForRetry = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private volatile boolean interrupted;
+        private volatile Instant finishedAt;
+
+        private Job(int totalMessages) {
+            this.totalMessages = totalMessages;
+            this.remaining = new AtomicInteger(totalMessages);
+        }
+
+        /**
+         * Counts finished messages under the given outcome.
+         *
+         * @return true if these were the last ones
+         */
+        private boolean finished(AtomicInteger outcome, int count) {
+            outcome.addAndGet(count);
+            if (remaining.addAndGet(-count) == 0) {
+                finishedAt = Instant.now();
+                return true;
+            }
+            return false;
+        }
+
+        private BroadcastJobDto toDto() {
+            BroadcastJobStatus status = finishedAt == null ? BroadcastJobStatus.RUNNING
+                    : interrupted ? BroadcastJobStatus.INTERRUPTED : BroadcastJobStatus.COMPLETED;
+            return new BroadcastJobDto(id, status, totalMessages, sent.get(), failed.get(), queuedForRetry.get(),
+                    createdAt, finishedAt);
+        }
+    }
+
+    /**
+     * Starts sending the message to every destination and returns the new
+     * job. Destinations are sent to in the given order.
+     */
+    public BroadcastJobDto start(List<String> destinations, String message) {
+        evictFinishedJobs();
+        Job job = new Job(destinations.size());
+        jobs.put(job.id, job);
+        if (destinations.isEmpty()) {
+            job.finishedAt = job.createdAt;
+        } else {
+            executor.execute(() -> dispatch(job, List.copyOf(destinations), message));
+        }
+        log.info("Broadcast {} started for {} recipients", job.id, destinations.size());
+        return job.toDto();
+    }
+
+    public Optional<BroadcastJobDto> getJob(UUID jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::toDto);
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Hands the messages out one by one, each once the rate limit and the
+     * concurrency cap allow it.
+     */
+    private void dispatch(Job job, List<String> destinations, String message) {
+        int started = 0;
+        try {
+            for (String destination : destinations) {
+                rateLimiter.acquire();
+                inFlight.acquire();
+                try {
+                    executor.execute(() -> send(job, destination, message));
+                } catch (RejectedExecutionException e) {
+                    inFlight.release();
+                    throw e;
+                }
+                started++;
+            }
+        } catch (InterruptedException | RejectedExecutionException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            // Shutting down: messages not yet started are counted as failed
+            job.interrupted = true;
+            log.warn("Broadcast {} stopped after {} of {} messages", job.id, started, destinations.size());
+            if (job.finished(job.failed, destinations.size() - started)) {
+                logFinished(job);
+            }
+        }
+    }
+
+    /**
+     * Sends one message and records it for delivery status tracking. A failed
+     * send is handed to the outbox, which retries it in the background or
+     * dead-letters it, so the broadcast never waits on a retry.
+     */
+    private void send(Job job, String destination, String message) {
+        AtomicInteger outcome = job.failed;
+        try {
+            String messageSid = smsService.sendSmsAsync(destination, message).join();
+            outcome = job.sent;
+            statusService.recordSent(messageSid, destination, SmsMessageType.BROADCAST, null);
+        } catch (RuntimeException failure) {
+            RuntimeException e = failure instanceof CompletionException && failure.getCause() instanceof RuntimeException cause
+                    ? cause : failure;
+            log.warn("Broadcast {} failed to send SMS to {}: {}", job.id, destination, e.getMessage());
+            try {
+                if (outboxService.recordFailure(destination, message, e)) {
+                    outcome = job.queuedForRetry;
+                }
+            } catch (RuntimeException queueFailure) {
+                log.error("Broadcast {} could not queue SMS to {} for retry: {}", job.id, destination, queueFailure.getMessage());
+            }
+        } finally {
+            inFlight.release();
+            if (job.finished(outcome, 1)) {
+                logFinished(job);
+            }
+        }
+    }
+
+    private static void logFinished(Job job) {
+        log.info("Broadcast {} finished: {} sent, {} failed, {} queued for retry",
+                job.id, job.sent.get(), job.failed.get(), job.queuedForRetry.get());
+    }
+
+    private void evictFinishedJobs() {
+        Instant cutoff = Instant.now().minus(jobRetention);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+}
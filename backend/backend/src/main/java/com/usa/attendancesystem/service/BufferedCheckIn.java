@@ -0,0 +1,23 @@
+package com.usa.attendancesystem.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * A check-in accepted in write-behind mode that may not be in the database yet.
+ * Carries everything needed to persist it and notify the parent, so it can be
+ * replayed from the journal after a restart.
+ */
+public record BufferedCheckIn(
+        long sequence,
+        Long sessionId,
+        UUID studentId,
+        Integer subjectId,
+        LocalDate attendanceDate,
+        Instant attendanceTimestamp,
+        String parentPhone,
+        String message
+        ) {
+
+}
@@ -1,15 +1,24 @@
 package com.usa.attendancesystem.service;
 
+import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
@@ -24,21 +33,21 @@ import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.usa.attendancesystem.dto.CsvImportResultDto;
-import com.usa.attendancesystem.dto.StudentCsvImportRequest;
-import com.usa.attendancesystem.dto.StudentDto;
-import com.usa.attendancesystem.exception.ResourceNotFoundException;
-import com.usa.attendancesystem.model.Batch;
-import com.usa.attendancesystem.model.Student;
+import com.usa.attendancesystem.dto.SubjectDto;
+import com.usa.attendancesystem.model.StudentImportMode;
 import com.usa.attendancesystem.model.Subject;
 import com.usa.attendancesystem.repository.BatchRepository;
-import com.usa.attendancesystem.repository.StudentRepository;
+import com.usa.attendancesystem.repository.StudentCopyRepository;
+import com.usa.attendancesystem.repository.StudentJdbcRepository;
 import com.usa.attendancesystem.repository.SubjectRepository;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -47,10 +56,51 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class CsvImportService {
 
-    private final StudentRepository studentRepository;
+    /**
+     * The columns blamed for a duplicate row in the error report.
+     */
+    private static final String DUPLICATE_COLUMNS = "Full Name, Parent Phone";
+
     private final BatchRepository batchRepository;
     private final SubjectRepository subjectRepository;
-    private final StudentService studentService;
+    private final StudentJdbcRepository studentJdbcRepository;
+    private final StudentCopyRepository studentCopyRepository;
+    private final StudentCodeAllocator studentCodeAllocator;
+    private final SessionRosterCache rosterCache;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${student.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${student.import.bulk-load.chunk-size:20000}")
+    private int bulkLoadChunkSize;
+
+    @Value("${student.import.xls-max-bytes:5242880}")
+    private long xlsMaxBytes;
+
+    @Value("${student.import.validation-parallelism:0}")
+    private int validationParallelism;
+
+    private ParallelRowValidator parallelValidator;
+
+    /**
+     * One data row of an import file, keyed by header name. rowNumber is the
+     * row's position in the file, for error messages.
+     */
+    private record ImportRow(int rowNumber, Map<String, String> values) {
+
+    }
+
+    @PostConstruct
+    void startValidationPool() {
+        parallelValidator = new ParallelRowValidator(validationParallelism);
+        log.info("Student import validation runs on {} threads", parallelValidator.parallelism());
+    }
+
+    @PreDestroy
+    void stopValidationPool() {
+        parallelValidator.close();
+    }
 
     // Dynamic headers - will be generated based on available subjects
     private String[] getCsvHeaders() {
@@ -69,97 +119,116 @@ public class CsvImportService {
         return headers.toArray(new String[0]);
     }
 
-    @Transactional
-    public CsvImportResultDto importStudentsFromCsv(MultipartFile file) {
-        log.info("Starting import process for file: {}", file.getOriginalFilename());
+    /**
+     * Imports students from a CSV or Excel file. Rows are read lazily and
+     * committed in chunks of {@code student.import.chunk-size}, so memory use
+     * does not grow with the file and a bad row late in the file does not roll
+     * back the rows before it. Stops at the next chunk boundary once
+     * cancellation is requested on the progress.
+     *
+     * <p>
+     * Rows that duplicate an existing student, or an earlier row of the same
+     * file, are rejected. A dry run performs every check, including the
+     * duplicate check, but writes nothing; the progress then counts as
+     * imported the rows that would have been imported. A bulk load checks
+     * rows the same way but writes much larger chunks with PostgreSQL COPY.
+     *
+     * @param fileName the original file name, used to pick the format
+     * @param jobId the import job, recorded on every student it creates
+     */
+    public CsvImportResultDto importStudents(Path file, String fileName, UUID jobId, StudentImportProgress progress, StudentImportMode mode) {
+        log.info("Starting {} import for file: {}", mode, fileName);
 
-        String fileName = file.getOriginalFilename();
         if (fileName == null) {
             throw new IllegalArgumentException("File name cannot be null");
         }
 
         try {
             if (fileName.toLowerCase().endsWith(".csv")) {
-                return importFromCsv(file);
+                importFromCsv(file, new RowChunker("CSV record", jobId, progress, mode), progress);
             } else if (fileName.toLowerCase().endsWith(".xlsx") || fileName.toLowerCase().endsWith(".xls")) {
-                return importFromExcel(file);
+                importFromExcel(file, fileName, new RowChunker("Excel row", jobId, progress, mode), progress);
             } else {
                 throw new IllegalArgumentException("Unsupported file format. Please use CSV or Excel files.");
             }
+        } catch (CancellationException e) {
+            progress.markCancelled();
+            log.info("Import of {} cancelled after {} rows", fileName, progress.rowsParsed());
         } catch (Exception e) {
             log.error("Error processing file", e);
             throw new RuntimeException("Failed to process file: " + e.getMessage(), e);
         }
-    }
-
-    private CsvImportResultDto importFromCsv(MultipartFile file) {
-        List<String> errors = new ArrayList<>();
-        List<StudentDto> importedStudents = new ArrayList<>();
-        int totalRows = 0;
-        int successfulImports = 0;
 
-        try (Reader reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8); CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT.withFirstRecordAsHeader())) {
+        log.info("Import of {} finished: {} successful, {} failed out of {} total",
+                fileName, progress.rowsImported(), progress.rowsParsed() - progress.rowsImported(), progress.rowsParsed());
+        return progress.toResult();
+    }
 
-            List<CSVRecord> records = csvParser.getRecords();
-            totalRows = records.size();
+    private void importFromCsv(Path file, RowChunker chunker, StudentImportProgress progress) {
 
-            log.info("Starting CSV import with {} records", totalRows);
+        try (Reader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8)); CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT.withFirstRecordAsHeader())) {
 
-            for (int i = 0; i < records.size(); i++) {
-                CSVRecord record = records.get(i);
-                int rowNumber = i + 2; // +2 because CSV rows start from 1 and we have a header
+            log.info("Starting CSV import in chunks of {} rows", chunker.size);
 
-                try {
-                    StudentCsvImportRequest studentRequest = parseRecord(record, rowNumber);
-                    StudentDto createdStudent = createStudentFromCsv(studentRequest);
-                    importedStudents.add(createdStudent);
-                    successfulImports++;
-                    log.debug("Successfully imported student: {}", studentRequest.fullName());
-                } catch (Exception e) {
-                    String error = String.format("Row %d: %s", rowNumber, e.getMessage());
-                    errors.add(error);
-                    log.warn("Failed to import student at row {}: {}", rowNumber, e.getMessage());
-                }
+            // The parser reads one record at a time; only the current chunk is held in memory
+            int rowNumber = 1; // Header is row 1
+            for (CSVRecord record : csvParser) {
+                chunker.add(new ImportRow(++rowNumber, record.toMap()));
             }
+            chunker.finish();
 
-        } catch (IOException e) {
+        } catch (IOException | UncheckedIOException e) {
             String error = "Failed to read CSV file: " + e.getMessage();
-            errors.add(error);
+            progress.fileError(error);
             log.error("CSV file reading error", e);
         }
-
-        int failedImports = totalRows - successfulImports;
-        log.info("CSV import completed: {} successful, {} failed out of {} total",
-                successfulImports, failedImports, totalRows);
-
-        return new CsvImportResultDto(
-                totalRows,
-                successfulImports,
-                failedImports,
-                errors,
-                importedStudents
-        );
     }
 
-    private CsvImportResultDto importFromExcel(MultipartFile file) {
-        List<String> errors = new ArrayList<>();
-        List<StudentDto> importedStudents = new ArrayList<>();
-        int totalRows = 0;
-        int successfulImports = 0;
+    private void importFromExcel(Path file, String fileName, RowChunker chunker, StudentImportProgress progress) {
+        boolean xlsx = fileName.toLowerCase().endsWith(".xlsx");
 
-        try (Workbook workbook = createWorkbook(file)) {
-            Sheet sheet = workbook.getSheetAt(0); // Use first sheet
-
-            totalRows = sheet.getLastRowNum(); // Exclude header row
+        try {
+            log.info("Starting Excel import in chunks of {} rows", chunker.size);
+            if (xlsx) {
+                // The SAX-based reader parses the sheet XML without building the workbook in memory
+                XlsxSheetReader.readFirstSheet(file.toFile(),
+                        (rowNumber, values) -> chunker.add(new ImportRow(rowNumber, values)));
+            } else {
+                readLegacyXls(file, chunker);
+            }
+            chunker.finish();
 
-            if (totalRows <= 0) {
+            if (progress.rowsParsed() == 0) {
                 throw new IllegalArgumentException("Excel file is empty or contains only headers");
             }
+        } catch (CancellationException e) {
+            throw e;
+        } catch (Exception e) {
+            String error = "Failed to read Excel file: " + e.getMessage();
+            progress.fileError(error);
+            log.error("Excel file reading error", e);
+        }
+    }
 
-            log.info("Starting Excel import with {} records", totalRows);
+    /**
+     * Legacy .xls has no streaming reader that fits here, so it is still
+     * loaded as a whole workbook, but only up to a size limit.
+     */
+    private void readLegacyXls(Path file, RowChunker chunker) throws IOException {
+        if (Files.size(file) > xlsMaxBytes) {
+            throw new IllegalArgumentException(String.format(
+                    "Legacy .xls files larger than %d KB are not supported. Please save the file as .xlsx or .csv.",
+                    xlsMaxBytes / 1024));
+        }
+
+        try (InputStream in = Files.newInputStream(file); Workbook workbook = new HSSFWorkbook(in)) {
+            Sheet sheet = workbook.getSheetAt(0); // Use first sheet
 
             // Get headers from first row
             Row headerRow = sheet.getRow(0);
+            if (headerRow == null) {
+                return;
+            }
             List<String> headers = new ArrayList<>();
             for (Cell cell : headerRow) {
                 headers.add(getCellValueAsString(cell));
@@ -172,334 +241,209 @@ public class CsvImportService {
                     continue;
                 }
 
-                int rowNumber = i + 1; // Excel row numbers start from 1
-
-                try {
-                    StudentCsvImportRequest studentRequest = parseExcelRow(row, headers, rowNumber);
-                    StudentDto createdStudent = createStudentFromCsv(studentRequest);
-                    importedStudents.add(createdStudent);
-                    successfulImports++;
-                    log.debug("Successfully imported student: {}", studentRequest.fullName());
-                } catch (Exception e) {
-                    String error = String.format("Row %d: %s", rowNumber, e.getMessage());
-                    errors.add(error);
-                    log.warn("Failed to import student at row {}: {}", rowNumber, e.getMessage());
+                Map<String, String> values = new HashMap<>();
+                for (int column = 0; column < headers.size(); column++) {
+                    values.put(headers.get(column), getCellValueAsString(row.getCell(column)));
                 }
+                chunker.add(new ImportRow(i + 1, values)); // Excel row numbers start from 1
             }
-
-        } catch (Exception e) {
-            String error = "Failed to read Excel file: " + e.getMessage();
-            errors.add(error);
-            log.error("Excel file reading error", e);
         }
-
-        int failedImports = totalRows - successfulImports;
-        log.info("Excel import completed: {} successful, {} failed out of {} total",
-                successfulImports, failedImports, totalRows);
-
-        return new CsvImportResultDto(
-                totalRows,
-                successfulImports,
-                failedImports,
-                errors,
-                importedStudents
-        );
     }
 
-    private Workbook createWorkbook(MultipartFile file) throws Exception {
-        String fileName = file.getOriginalFilename();
-        if (fileName.toLowerCase().endsWith(".xlsx")) {
-            return new XSSFWorkbook(file.getInputStream());
-        } else if (fileName.toLowerCase().endsWith(".xls")) {
-            return new HSSFWorkbook(file.getInputStream());
-        } else {
-            throw new IllegalArgumentException("Unsupported Excel file format");
-        }
-    }
-
-    private String getCellValueAsString(Cell cell) {
-        if (cell == null) {
-            return "";
-        }
-
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue().trim();
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getDateCellValue().toString();
-                } else {
-                    return String.valueOf((long) cell.getNumericCellValue());
-                }
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue());
-            case FORMULA:
-                return cell.getCellFormula();
-            default:
-                return "";
+    /**
+     * Collects rows from any source into chunks of {@code chunkSize} (or
+     * {@code bulkLoadChunkSize} for bulk loads) and
+     * imports them as a two-stage pipeline: a full chunk is handed to the
+     * parallel validator, and while it is being validated the previous chunk
+     * is written. Writing stays on the calling thread, so chunks are committed
+     * strictly in file order. At most two chunks are held at once.
+     */
+    private final class RowChunker {
+
+        private final StudentRowValidator validator;
+        private final StudentDuplicateIndex duplicates;
+        private final UUID jobId;
+        private final StudentImportProgress progress;
+        private final StudentImportMode mode;
+        private final int size;
+        private List<ImportRow> chunk;
+        private List<ImportRow> pendingRows;
+        private CompletableFuture<List<ParallelRowValidator.Outcome>> pendingOutcomes;
+
+        private RowChunker(String rowLabel, UUID jobId, StudentImportProgress progress, StudentImportMode mode) {
+            // Batches, subjects and existing students are looked up once per import, not once per row
+            ImportLookups lookups = ImportLookups.of(batchRepository.findAll(), subjectRepository.findAll());
+            this.validator = new StudentRowValidator(lookups, rowLabel);
+            this.duplicates = transactionTemplate.execute(status -> StudentDuplicateIndex.of(studentJdbcRepository));
+            this.jobId = jobId;
+            this.progress = progress;
+            this.mode = mode;
+            this.size = mode == StudentImportMode.BULK_LOAD ? bulkLoadChunkSize : chunkSize;
+            this.chunk = new ArrayList<>(size);
+            log.debug("Duplicate index loaded with {} existing students", duplicates.size());
         }
-    }
-
-    private StudentCsvImportRequest parseExcelRow(Row row, List<String> headers, int rowNumber) {
-        try {
-            String fullName = getCellValueByHeader(row, headers, "Full Name");
-            String parentPhone = getCellValueByHeader(row, headers, "Parent Phone");
-            String studentPhone = getCellValueByHeaderOptional(row, headers, "Student Phone");
-            String batchYearStr = getCellValueByHeader(row, headers, "Batch Year");
 
-            // Validate and parse batch year
-            Integer batchYear;
-            try {
-                batchYear = Integer.parseInt(batchYearStr);
-            } catch (NumberFormatException e) {
-                throw new IllegalArgumentException("Invalid batch year format: " + batchYearStr);
+        private void add(ImportRow row) {
+            chunk.add(row);
+            if (chunk.size() == size) {
+                submitChunk();
             }
-
-            // Parse subjects from 1/0 columns
-            List<Subject> allSubjects = subjectRepository.findAll();
-            List<String> selectedSubjects = new ArrayList<>();
-
-            for (Subject subject : allSubjects) {
-                String subjectValue = getCellValueByHeaderOptional(row, headers, subject.getName());
-                if ("1".equals(subjectValue) || "1.0".equals(subjectValue)) {
-                    selectedSubjects.add(subject.getName());
-                }
-            }
-
-            String subjectNames = String.join(",", selectedSubjects);
-
-            return new StudentCsvImportRequest(
-                    fullName.trim(),
-                    parentPhone.trim().replaceAll("[^0-9]", ""), // Remove non-digits
-                    studentPhone != null ? studentPhone.trim().replaceAll("[^0-9]", "") : null,
-                    batchYear,
-                    subjectNames
-            );
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Error parsing Excel row: " + e.getMessage());
         }
-    }
 
-    private String getCellValueByHeader(Row row, List<String> headers, String headerName) {
-        int columnIndex = headers.indexOf(headerName);
-        if (columnIndex == -1) {
-            throw new IllegalArgumentException("Required column '" + headerName + "' not found");
+        private void finish() {
+            submitChunk();
+            writePending();
         }
 
-        Cell cell = row.getCell(columnIndex);
-        String value = getCellValueAsString(cell);
-
-        if (value.isEmpty()) {
-            throw new IllegalArgumentException(headerName + " is required but was empty");
-        }
-
-        return value;
-    }
-
-    private String getCellValueByHeaderOptional(Row row, List<String> headers, String headerName) {
-        int columnIndex = headers.indexOf(headerName);
-        if (columnIndex == -1) {
-            return null; // Optional column not found
+        private void submitChunk() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<ImportRow> rows = chunk;
+            chunk = new ArrayList<>(size);
+            CompletableFuture<List<ParallelRowValidator.Outcome>> outcomes
+                    = parallelValidator.validate(rows.stream().map(ImportRow::values).toList(), validator);
+
+            writePending();
+            pendingRows = rows;
+            pendingOutcomes = outcomes;
         }
 
-        Cell cell = row.getCell(columnIndex);
-        return getCellValueAsString(cell);
-    }
-
-    private StudentCsvImportRequest parseRecord(CSVRecord record, int rowNumber) {
-        try {
-            String fullName = getFieldValue(record, "Full Name", rowNumber);
-            String parentPhone = getFieldValue(record, "Parent Phone", rowNumber);
-            String studentPhone = getOptionalFieldValue(record, "Student Phone");
-            String batchYearStr = getFieldValue(record, "Batch Year", rowNumber);
-
-            // Validate and parse batch year
-            Integer batchYear;
-            try {
-                batchYear = Integer.parseInt(batchYearStr.trim());
-            } catch (NumberFormatException e) {
-                throw new IllegalArgumentException("Invalid batch year format: " + batchYearStr);
+        private void writePending() {
+            if (pendingRows == null) {
+                return;
             }
-
-            // Parse subjects from 1/0 columns
-            List<Subject> allSubjects = subjectRepository.findAll();
-            List<String> selectedSubjects = new ArrayList<>();
-
-            for (Subject subject : allSubjects) {
-                String subjectValue = getOptionalFieldValue(record, subject.getName());
-                if ("1".equals(subjectValue)) {
-                    selectedSubjects.add(subject.getName());
-                }
+            if (progress.isCancelRequested()) {
+                throw new CancellationException();
             }
-
-            String subjectNames = String.join(",", selectedSubjects);
-
-            return new StudentCsvImportRequest(
-                    fullName.trim(),
-                    parentPhone.trim().replaceAll("[^0-9]", ""), // Remove non-digits
-                    studentPhone != null ? studentPhone.trim().replaceAll("[^0-9]", "") : null,
-                    batchYear,
-                    subjectNames
-            );
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Error parsing CSV record: " + e.getMessage());
+            List<ParallelRowValidator.Outcome> outcomes;
+            try {
+                outcomes = pendingOutcomes.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+            importChunk(pendingRows, outcomes, duplicates, jobId, mode, progress);
+            pendingRows = null;
+            pendingOutcomes = null;
         }
     }
 
-    private String getFieldValue(CSVRecord record, String header, int rowNumber) {
-        try {
-            String value = record.get(header);
-            if (value == null || value.trim().isEmpty()) {
-                throw new IllegalArgumentException(header + " is required but was empty");
+    /**
+     * Imports one chunk of rows whose validation outcomes are already known.
+     * Invalid and duplicate rows are reported and skipped without touching
+     * the database. The valid rest is inserted in one transaction with JDBC
+     * batches, unless this is a dry run. If that transaction fails (e.g. a
+     * constraint violation), the rows are retried one per transaction so only
+     * the offending rows are lost.
+     */
+    private void importChunk(List<ImportRow> chunk, List<ParallelRowValidator.Outcome> outcomes,
+            StudentDuplicateIndex duplicates, UUID jobId, StudentImportMode mode, StudentImportProgress progress) {
+        progress.rowsParsed(chunk.size());
+
+        List<ImportRow> validRows = new ArrayList<>(chunk.size());
+        List<StudentRowValidator.ValidatedStudent> validStudents = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            ImportRow row = chunk.get(i);
+            ParallelRowValidator.Outcome outcome = outcomes.get(i);
+            if (!outcome.isValid()) {
+                progress.failed(row.rowNumber(), outcome.column(), outcome.error());
+                continue;
             }
-            return value;
-        } catch (IllegalArgumentException e) {
-            if (e.getMessage().contains("Mapping for")) {
-                throw new IllegalArgumentException("Missing required column: " + header);
+            StudentRowValidator.ValidatedStudent student = outcome.student();
+            String duplicateOf = duplicates.claim(student.fullName(), student.parentPhone(), row.rowNumber());
+            if (duplicateOf != null) {
+                progress.failed(row.rowNumber(), DUPLICATE_COLUMNS, "Duplicate student: same full name and parent phone as " + duplicateOf);
+                continue;
             }
-            throw e;
+            validStudents.add(student);
+            validRows.add(row);
         }
-    }
-
-    private String getOptionalFieldValue(CSVRecord record, String header) {
-        try {
-            String value = record.get(header);
-            return (value != null && !value.trim().isEmpty()) ? value : null;
-        } catch (IllegalArgumentException e) {
-            // Column doesn't exist, return null for optional fields
-            return null;
-        }
-    }
-
-    private StudentDto createStudentFromCsv(StudentCsvImportRequest request) {
-        // Validate phone numbers (Sri Lankan format)
-        if (!isValidPhoneNumber(request.parentPhone())) {
-            throw new IllegalArgumentException("Invalid parent phone number format. Please use Sri Lankan format (e.g., 0771234567)");
+        if (validStudents.isEmpty()) {
+            return;
         }
-        if (request.studentPhone() != null && !isValidPhoneNumber(request.studentPhone())) {
-            throw new IllegalArgumentException("Invalid student phone number format. Please use Sri Lankan format (e.g., 0771234567)");
+        if (mode == StudentImportMode.DRY_RUN) {
+            progress.validated(validStudents.size());
+            return;
         }
 
-        // Find or validate batch
-        Batch batch = batchRepository.findByBatchYear(request.batchYear())
-                .orElseThrow(() -> new ResourceNotFoundException(
-                "Batch with year " + request.batchYear() + " not found"));
-
-        // Parse and validate subjects
-        Set<Subject> subjects = parseSubjects(request.subjectNames());
-
-        // Auto-generate student ID code and index number
-        String studentIdCode = generateNextStudentIdCode();
-        String indexNumber = generateNextIndexNumber();
-
-        // Create student
-        Student student = Student.builder()
-                .studentIdCode(studentIdCode)
-                .indexNumber(indexNumber)
-                .fullName(request.fullName())
-                .parentPhone(request.parentPhone())
-                .studentPhone(request.studentPhone())
-                .batch(batch)
-                .subjects(subjects)
-                .isActive(true)
-                .build();
-
-        Student savedStudent = studentRepository.save(student);
-        return studentService.mapToStudentDto(savedStudent);
-    }
-
-    private Set<Subject> parseSubjects(String subjectNames) {
-        if (subjectNames == null || subjectNames.trim().isEmpty()) {
-            throw new IllegalArgumentException("At least one subject is required");
-        }
-
-        String[] subjectNameArray = subjectNames.split(",");
-        Set<Subject> subjects = new HashSet<>();
-
-        for (String subjectName : subjectNameArray) {
-            String trimmedName = subjectName.trim();
-            if (!trimmedName.isEmpty()) {
-                Subject subject = subjectRepository.findByName(trimmedName)
-                        .orElseThrow(() -> new ResourceNotFoundException(
-                        "Subject '" + trimmedName + "' not found"));
-                subjects.add(subject);
+        try {
+            progress.imported(transactionTemplate.execute(status -> insertStudents(validStudents, jobId, mode)));
+            log.debug("Committed chunk ending at row {}: {} imported, {} failed",
+                    chunk.get(chunk.size() - 1).rowNumber(), validStudents.size(), chunk.size() - validStudents.size());
+        } catch (RuntimeException e) {
+            log.warn("Chunk starting at row {} failed to commit ({}); retrying its rows individually",
+                    chunk.get(0).rowNumber(), e.getMessage());
+            for (int i = 0; i < validStudents.size(); i++) {
+                List<StudentRowValidator.ValidatedStudent> single = List.of(validStudents.get(i));
+                try {
+                    progress.imported(transactionTemplate.execute(status -> insertStudents(single, jobId, StudentImportMode.STANDARD)));
+                } catch (RuntimeException rowException) {
+                    duplicates.release(single.get(0).fullName(), single.get(0).parentPhone());
+                    progress.failed(validRows.get(i).rowNumber(), null, rowException.getMessage());
+                    log.warn("Failed to import student at row {}: {}", validRows.get(i).rowNumber(), rowException.getMessage());
+                }
             }
         }
-
-        if (subjects.isEmpty()) {
-            throw new IllegalArgumentException("At least one valid subject is required");
-        }
-
-        return subjects;
-    }
-
-    private boolean isValidPhoneNumber(String phoneNumber) {
-        if (phoneNumber == null || phoneNumber.trim().isEmpty()) {
-            return false;
-        }
-        // Sri Lankan phone number validation
-        // Mobile: 07XXXXXXXX (10 digits)
-        // Landline: 0XXXXXXXX (9-10 digits)
-        // Pattern: starts with 0, followed by 1-9, then 7-8 more digits
-        return phoneNumber.matches("^0[1-9]\\d{7,8}$");
     }
 
     /**
-     * Generate next student ID code for CSV import
+     * Allocates STU/IDX codes from the sequences and inserts the students and
+     * their subjects, as JDBC batches or, for bulk loads, with COPY. Must run
+     * inside a transaction.
      */
-    private String generateNextStudentIdCode() {
-        List<Student> students = studentRepository.findAllOrderByStudentIdCodeDesc();
-
-        if (students.isEmpty()) {
-            return "STU001";
+    private int insertStudents(List<StudentRowValidator.ValidatedStudent> students, UUID jobId, StudentImportMode mode) {
+        List<StudentCodeAllocator.StudentCodes> codes = studentCodeAllocator.reserve(students.size());
+
+        List<StudentJdbcRepository.NewStudent> newStudents = new ArrayList<>(students.size());
+        for (int i = 0; i < students.size(); i++) {
+            StudentRowValidator.ValidatedStudent student = students.get(i);
+            newStudents.add(new StudentJdbcRepository.NewStudent(
+                    UUID.randomUUID(),
+                    codes.get(i).studentIdCode(),
+                    codes.get(i).indexNumber(),
+                    student.fullName(),
+                    student.parentPhone(),
+                    student.studentPhone(),
+                    student.batch().id(),
+                    student.subjects().stream().map(SubjectDto::id).toList(),
+                    jobId
+            ));
         }
-
-        int maxNumber = 0;
-        for (Student student : students) {
-            String studentIdCode = student.getStudentIdCode();
-            if (studentIdCode.startsWith("STU") && studentIdCode.length() >= 6) {
-                try {
-                    String numericPart = studentIdCode.substring(3);
-                    int number = Integer.parseInt(numericPart);
-                    maxNumber = Math.max(maxNumber, number);
-                } catch (NumberFormatException e) {
-                    continue;
-                }
-            }
+        if (mode == StudentImportMode.BULK_LOAD) {
+            studentCopyRepository.copyAll(newStudents);
+        } else {
+            studentJdbcRepository.insertAll(newStudents);
         }
 
-        int nextNumber = maxNumber + 1;
-        return String.format("STU%03d", nextNumber);
+        // Imported students may belong to sessions whose rosters are already cached
+        rosterCache.invalidateAll();
+        return newStudents.size();
     }
 
-    /**
-     * Generate next index number for CSV import
-     */
-    private String generateNextIndexNumber() {
-        List<Student> students = studentRepository.findAllOrderByIndexNumberDesc();
-
-        if (students.isEmpty()) {
-            return "IDX001";
+    private String getCellValueAsString(Cell cell) {
+        if (cell == null) {
+            return "";
         }
 
-        int maxNumber = 0;
-        for (Student student : students) {
-            String indexNumber = student.getIndexNumber();
-            if (indexNumber.startsWith("IDX") && indexNumber.length() >= 6) {
-                try {
-                    String numericPart = indexNumber.substring(3);
-                    int number = Integer.parseInt(numericPart);
-                    maxNumber = Math.max(maxNumber, number);
-                } catch (NumberFormatException e) {
-                    continue;
+        switch (cell.getCellType()) {
+            case STRING:
+                return cell.getStringCellValue().trim();
+            case NUMERIC:
+                if (DateUtil.isCellDateFormatted(cell)) {
+                    return cell.getDateCellValue().toString();
+                } else {
+                    return String.valueOf((long) cell.getNumericCellValue());
                 }
-            }
+            case BOOLEAN:
+                return String.valueOf(cell.getBooleanCellValue());
+            case FORMULA:
+                return cell.getCellFormula();
+            default:
+                return "";
         }
-
-        int nextNumber = maxNumber + 1;
-        return String.format("IDX%03d", nextNumber);
     }
 
+
     public String generateCsvTemplate() {
         try (StringWriter writer = new StringWriter(); CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT.withHeader(getCsvHeaders()))) {
 
@@ -0,0 +1,65 @@
+package com.usa.attendancesystem.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The CSV error report of one import job (Row, Column, Reason). Errors are
+ * appended as they are found, so the report holds every error however many
+ * there are, while only a bounded sample is kept in memory. The file is
+ * created with the first error; an import without errors leaves none.
+ *
+ * <p>
+ * A failure to write the report is logged and does not stop the import; the
+ * in-memory sample and the counts are still recorded on the job.
+ */
+@Slf4j
+final class ImportErrorReport implements AutoCloseable {
+
+    private static final String[] HEADERS = {"Row", "Column", "Reason"};
+
+    private final Path file;
+    private CSVPrinter printer;
+    private boolean broken;
+
+    ImportErrorReport(Path file) {
+        this.file = file;
+    }
+
+    synchronized void append(StudentImportProgress.ImportError error) {
+        if (broken) {
+            return;
+        }
+        try {
+            if (printer == null) {
+                printer = new CSVPrinter(Files.newBufferedWriter(file, StandardCharsets.UTF_8),
+                        CSVFormat.DEFAULT.builder().setHeader(HEADERS).build());
+            }
+            printer.printRecord(error.rowNumber(), error.column(), error.message());
+        } catch (IOException e) {
+            broken = true;
+            log.warn("Could not write import error report {}: {}", file, e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (printer == null) {
+            return;
+        }
+        try {
+            printer.close(true);
+        } catch (IOException e) {
+            log.warn("Could not finish import error report {}: {}", file, e.getMessage());
+        } finally {
+            printer = null;
+        }
+    }
+}
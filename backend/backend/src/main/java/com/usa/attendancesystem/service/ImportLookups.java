@@ -0,0 +1,39 @@
+package com.usa.attendancesystem.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.usa.attendancesystem.dto.BatchDto;
+import com.usa.attendancesystem.dto.SubjectDto;
+import com.usa.attendancesystem.model.Batch;
+import com.usa.attendancesystem.model.Subject;
+
+/**
+ * Reference data for one import, loaded once up front so rows can be
+ * validated without any further queries. Immutable, so it can be shared
+ * freely while rows are processed.
+ *
+ * @param subjectNames subject names in column order of the import template
+ */
+record ImportLookups(
+        Map<Integer, BatchDto> batchesByYear,
+        Map<String, SubjectDto> subjectsByName,
+        List<String> subjectNames
+        ) {
+
+    static ImportLookups of(List<Batch> batches, List<Subject> subjects) {
+        Map<Integer, BatchDto> batchesByYear = new HashMap<>();
+        for (Batch batch : batches) {
+            batchesByYear.put(batch.getBatchYear(), new BatchDto(batch.getId(), batch.getBatchYear()));
+        }
+        Map<String, SubjectDto> subjectsByName = new HashMap<>();
+        for (Subject subject : subjects) {
+            subjectsByName.put(subject.getName(), new SubjectDto(subject.getId(), subject.getName()));
+        }
+        return new ImportLookups(
+                Map.copyOf(batchesByYear),
+                Map.copyOf(subjectsByName),
+                subjects.stream().map(Subject::getName).toList());
+    }
+}
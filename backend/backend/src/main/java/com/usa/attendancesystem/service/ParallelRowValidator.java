@@ -0,0 +1,73 @@
+package com.usa.attendancesystem.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Validates chunks of import rows in parallel on a dedicated fork-join pool,
+ * so parsing and phone checks use every core instead of the single thread that
+ * reads the file. Results come back in row order, which lets a single writer
+ * commit them exactly as the rows appear in the file.
+ */
+final class ParallelRowValidator implements AutoCloseable {
+
+    /**
+     * The result of validating one row: either a student ready to insert or
+     * the reason the row was rejected, and the column at fault if known.
+     */
+    record Outcome(StudentRowValidator.ValidatedStudent student, String column, String error) {
+
+        boolean isValid() {
+            return student != null;
+        }
+    }
+
+    private final ForkJoinPool pool;
+
+    /**
+     * @param parallelism number of validation threads; 0 or less uses one per
+     * available core
+     */
+    ParallelRowValidator(int parallelism) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(threads, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("student-import-validate-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    int parallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Starts validating the given rows in the background. The returned list
+     * has one outcome per row, in the same order as the input.
+     */
+    CompletableFuture<List<Outcome>> validate(List<Map<String, String>> rows, StudentRowValidator validator) {
+        // A parallel stream started from a worker of this pool splits its work within the same pool
+        return CompletableFuture.supplyAsync(() -> rows.parallelStream()
+                .map(values -> validateOne(validator, values))
+                .toList(), pool);
+    }
+
+    private static Outcome validateOne(StudentRowValidator validator, Map<String, String> values) {
+        try {
+            return new Outcome(validator.validate(values), null, null);
+        } catch (StudentRowValidator.InvalidRowException e) {
+            return new Outcome(null, e.column(), e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return new Outcome(null, null, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
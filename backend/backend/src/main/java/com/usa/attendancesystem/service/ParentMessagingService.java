@@ -1,14 +1,23 @@
 package com.usa.attendancesystem.service;
 
+import com.usa.attendancesystem.dto.BroadcastJobDto;
 import com.usa.attendancesystem.dto.BroadcastMessageRequest;
+import com.usa.attendancesystem.exception.ResourceNotFoundException;
 import com.usa.attendancesystem.model.FeeRecord;
+import com.usa.attendancesystem.model.SmsMessageType;
+import com.usa.attendancesystem.model.SmsOutboxMessage;
 import com.usa.attendancesystem.model.Student;
 import com.usa.attendancesystem.repository.StudentRepository;
+import com.usa.attendancesystem.util.PhoneNumbers;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -16,22 +25,42 @@ public class ParentMessagingService {
 
     private final StudentRepository studentRepository;
     private final FeeManagementService feeManagementService;
-    private final SmsService smsService;
+    private final SmsOutboxService smsOutboxService;
+    private final BroadcastDispatcher broadcastDispatcher;
 
+    /**
+     * Starts a broadcast to the parents of a batch, or of the students taking
+     * one subject in it, and returns at once. Messages are sent in the
+     * background; poll {@link #getBroadcastJob} for progress.
+     */
     @Transactional(readOnly = true)
-    public void sendBroadcastMessage(BroadcastMessageRequest request) {
-        // This logic can be expanded. For now, we assume if subjectId is null, it's for the whole batch.
-        List<Student> targetStudents = studentRepository.findActiveStudentsByBatchAndSubject(request.batchId(), request.subjectId());
+    public BroadcastJobDto sendBroadcastMessage(BroadcastMessageRequest request) {
+        // If subjectId is null, it's for the whole batch
+        List<String> parentPhones = studentRepository.findActiveParentPhones(request.batchId(), request.subjectId());
 
-        for (Student student : targetStudents) {
-            smsService.sendSms(student.getParentPhone(), request.message());
+        // Every recipient gets the same text, so siblings' parents only need it once, at the number as stored
+        Map<String, String> destinations = new LinkedHashMap<>();
+        for (String parentPhone : parentPhones) {
+            destinations.putIfAbsent(PhoneNumbers.normalize(parentPhone), parentPhone);
         }
+        return broadcastDispatcher.start(List.copyOf(destinations.values()), request.message());
     }
 
-    @Transactional(readOnly = true)
+    public BroadcastJobDto getBroadcastJob(UUID jobId) {
+        return broadcastDispatcher.getJob(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Broadcast job not found with ID: " + jobId));
+    }
+
+    /**
+     * Queues a reminder for every overdue fee record in the SMS outbox, which
+     * delivers them in the background and retries failed sends. Reminders
+     * for children sharing a parent phone are merged into one text.
+     */
+    @Transactional
     public int sendFeeReminders() {
         List<FeeRecord> overdueRecords = feeManagementService.findOverdueFeeRecords();
 
+        List<SmsOutboxMessage> reminders = new ArrayList<>(overdueRecords.size());
         for (FeeRecord record : overdueRecords) {
             Student student = record.getStudent();
             String message = String.format(
@@ -39,8 +68,9 @@ public class ParentMessagingService {
                     record.getAmountDue().subtract(record.getAmountPaid()),
                     student.getFullName()
             );
-            smsService.sendSms(student.getParentPhone(), message);
+            reminders.add(new SmsOutboxMessage(student.getParentPhone(), message, SmsMessageType.FEE_REMINDER, student.getId()));
         }
-        return overdueRecords.size(); // Return the count of reminders sent
+        smsOutboxService.enqueueAll(reminders);
+        return overdueRecords.size(); // Return the count of reminders queued
     }
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.usa.attendancesystem.service;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import com.usa.attendancesystem.dto.RosterStudentDto;
+
+/**
+ * Immutable snapshot of the students allowed to check in to one attendance
+ * session: active students of the session's batch who take its subject, keyed
+ * by normalized index number.
+ */
+public record SessionRoster(
+        Long sessionId,
+        Integer batchId,
+        Integer subjectId,
+        String subjectName,
+        LocalDate sessionDate,
+        boolean writeBehind,
+        Map<String, RosterStudentDto> studentsByIndex
+        ) {
+
+    public RosterStudentDto find(String indexNumber) {
+        return studentsByIndex.get(normalizeIndexNumber(indexNumber));
+    }
+
+    public int size() {
+        return studentsByIndex.size();
+    }
+
+    public static String normalizeIndexNumber(String indexNumber) {
+        return indexNumber.trim().toUpperCase();
+    }
+}
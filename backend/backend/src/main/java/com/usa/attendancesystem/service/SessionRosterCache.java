@@ -0,0 +1,133 @@
+package com.usa.attendancesystem.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.usa.attendancesystem.dto.RosterStudentDto;
+import com.usa.attendancesystem.exception.ResourceNotFoundException;
+import com.usa.attendancesystem.model.AttendanceSession;
+import com.usa.attendancesystem.repository.AttendanceSessionRepository;
+import com.usa.attendancesystem.repository.StudentRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory cache of {@link SessionRoster}s for active attendance sessions.
+ * A roster is built once (when the session is created or first used) with two
+ * queries, after which validating a kiosk check-in is a single map lookup.
+ *
+ * Invalidation is applied after the surrounding transaction commits, so a
+ * concurrent rebuild can never re-cache data that is about to change.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SessionRosterCache {
+
+    private final AttendanceSessionRepository sessionRepository;
+    private final StudentRepository studentRepository;
+
+    private final ConcurrentMap<Long, SessionRoster> rosters = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation; a roster loaded under an older generation is not cached.
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Returns the roster for an active session, loading it on first use.
+     *
+     * @throws ResourceNotFoundException if the session does not exist or is not active
+     */
+    public SessionRoster getRoster(Long sessionId) {
+        SessionRoster cached = rosters.get(sessionId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long loadGeneration = generation.get();
+        SessionRoster loaded = loadRoster(sessionId);
+        if (generation.get() != loadGeneration) {
+            return loaded; // Invalidated while loading: serve it once, don't cache it
+        }
+        SessionRoster existing = rosters.putIfAbsent(sessionId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    /**
+     * Builds the roster for a newly created session once its transaction commits.
+     */
+    public void preload(Long sessionId) {
+        afterCommit(() -> {
+            try {
+                getRoster(sessionId);
+            } catch (RuntimeException e) {
+                // The roster is rebuilt on first use anyway; never fail the committed request
+                log.warn("Failed to preload roster for session {}: {}", sessionId, e.getMessage());
+            }
+        });
+    }
+
+    public void invalidate(Long sessionId) {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            rosters.remove(sessionId);
+        });
+    }
+
+    /**
+     * Drops every cached roster. Used when student data changes, since a single
+     * student can appear in the rosters of many sessions.
+     */
+    public void invalidateAll() {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            rosters.clear();
+        });
+    }
+
+    private SessionRoster loadRoster(Long sessionId) {
+        AttendanceSession session = sessionRepository.findActiveSessionWithBatchAndSubject(sessionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Active session not found with ID: " + sessionId));
+
+        Integer batchId = session.getBatch().getId();
+        Integer subjectId = session.getSubject().getId();
+        List<RosterStudentDto> students = studentRepository.findRosterStudentsByBatchAndSubject(batchId, subjectId);
+
+        Map<String, RosterStudentDto> studentsByIndex = new HashMap<>(students.size() * 2);
+        for (RosterStudentDto student : students) {
+            studentsByIndex.put(SessionRoster.normalizeIndexNumber(student.indexNumber()), student);
+        }
+
+        log.debug("Loaded roster for session {} with {} students", sessionId, studentsByIndex.size());
+        return new SessionRoster(
+                session.getId(),
+                batchId,
+                subjectId,
+                session.getSubject().getName(),
+                session.getSessionDate(),
+                session.isWriteBehind(),
+                Map.copyOf(studentsByIndex)
+        );
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
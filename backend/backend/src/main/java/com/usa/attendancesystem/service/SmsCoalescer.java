@@ -0,0 +1,143 @@
+package com.usa.attendancesystem.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Merges several SMS for the same phone into as few messages as possible, so
+ * a parent with two or three children enrolled gets one text instead of a
+ * handful of near-identical ones. Identical texts are sent once. Differing
+ * texts keep their shared opening and closing words once, with the differing
+ * middles joined in between:
+ *
+ * <pre>
+ * "Dear Parent, your son A has checked in for Maths class at 08:01 AM today. - Institute"
+ * "Dear Parent, your son B has checked in for Physics class at 08:03 AM today. - Institute"
+ * becomes
+ * "Dear Parent, your son A has checked in for Maths class at 08:01; B has checked in for Physics class at 08:03 AM today. - Institute"
+ * </pre>
+ *
+ * A merged text never grows past the length limit; parts that do not fit
+ * start another message.
+ */
+final class SmsCoalescer {
+
+    static final String SEPARATOR = "; ";
+
+    private SmsCoalescer() {
+    }
+
+    /**
+     * One outgoing text and the items it covers.
+     */
+    record Merged<T>(String message, List<T> parts) {
+
+    }
+
+    /**
+     * Merges the texts of items going to one phone, keeping their order.
+     *
+     * @param maxLength longest merged text allowed; a single item longer than
+     * this is still sent on its own
+     */
+    static <T> List<Merged<T>> coalesce(List<T> items, Function<T, String> text, int maxLength) {
+        List<Merged<T>> merged = new ArrayList<>();
+        List<T> group = new ArrayList<>();
+        String groupText = null;
+        for (T item : items) {
+            if (group.isEmpty()) {
+                group.add(item);
+                groupText = text.apply(item);
+                continue;
+            }
+            List<String> texts = new ArrayList<>(group.size() + 1);
+            for (T part : group) {
+                texts.add(text.apply(part));
+            }
+            texts.add(text.apply(item));
+            String candidate = merge(texts);
+            if (candidate.length() <= maxLength) {
+                group.add(item);
+                groupText = candidate;
+            } else {
+                merged.add(new Merged<>(groupText, List.copyOf(group)));
+                group.clear();
+                group.add(item);
+                groupText = text.apply(item);
+            }
+        }
+        if (!group.isEmpty()) {
+            merged.add(new Merged<>(groupText, List.copyOf(group)));
+        }
+        return merged;
+    }
+
+    /**
+     * Merges texts into one: duplicates dropped, the words every text starts
+     * and ends with kept once.
+     */
+    static String merge(List<String> texts) {
+        Set<String> distinct = new LinkedHashSet<>(texts);
+        if (distinct.size() == 1) {
+            return distinct.iterator().next();
+        }
+        List<String> unique = List.copyOf(distinct);
+        int prefix = commonPrefix(unique);
+        int suffix = commonSuffix(unique, prefix);
+
+        StringBuilder message = new StringBuilder(unique.get(0).substring(0, prefix));
+        for (int i = 0; i < unique.size(); i++) {
+            String text = unique.get(i);
+            if (i > 0) {
+                message.append(SEPARATOR);
+            }
+            message.append(text, prefix, text.length() - suffix);
+        }
+        String first = unique.get(0);
+        return message.append(first, first.length() - suffix, first.length()).toString();
+    }
+
+    /**
+     * Length of the longest prefix shared by all texts, cut back to just
+     * after a space so no word is split.
+     */
+    private static int commonPrefix(List<String> texts) {
+        String first = texts.get(0);
+        int length = first.length();
+        for (String text : texts) {
+            int i = 0;
+            while (i < length && i < text.length() && text.charAt(i) == first.charAt(i)) {
+                i++;
+            }
+            length = i;
+        }
+        while (length > 0 && first.charAt(length - 1) != ' ') {
+            length--;
+        }
+        return length;
+    }
+
+    /**
+     * Length of the longest suffix shared by all texts that does not overlap
+     * the prefix, cut back to start at a space so no word is split.
+     */
+    private static int commonSuffix(List<String> texts, int prefix) {
+        String first = texts.get(0);
+        int length = first.length() - prefix;
+        for (String text : texts) {
+            int max = Math.min(length, text.length() - prefix);
+            int i = 0;
+            while (i < max && text.charAt(text.length() - 1 - i) == first.charAt(first.length() - 1 - i)) {
+                i++;
+            }
+            length = i;
+        }
+        while (length > 0 && first.charAt(first.length() - length) != ' ') {
+            length--;
+        }
+        return length;
+    }
+}
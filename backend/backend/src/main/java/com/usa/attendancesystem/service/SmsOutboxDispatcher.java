@@ -0,0 +1,104 @@
+package com.usa.attendancesystem.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.usa.attendancesystem.model.SmsOutboxMessage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Background worker that drains the SMS outbox. Messages are claimed in short
+ * transactions and delivered outside of them, so a slow SMS provider never
+ * holds a database connection.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SmsOutboxDispatcher {
+
+    private final SmsOutboxService outboxService;
+    private final SmsService smsService;
+    private final SmsStatusService statusService;
+
+    @Value("${sms.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${sms.outbox.claim-timeout-seconds:300}")
+    private long claimTimeoutSeconds;
+
+    @Scheduled(fixedDelayString = "${sms.outbox.poll-interval-ms:500}")
+    public void dispatchPending() {
+        List<SmsOutboxMessage> batch;
+        do {
+            batch = outboxService.claimBatch(batchSize);
+            // Messages for the same phone, e.g. siblings' check-ins, go out as one text
+            List<CompletableFuture<Void>> deliveries = new ArrayList<>();
+            for (SmsCoalescer.Merged<SmsOutboxMessage> text : outboxService.coalesceByDestination(batch)) {
+                deliveries.add(deliver(text));
+            }
+            // The whole batch is in flight at once; wait for it before claiming more
+            CompletableFuture.allOf(deliveries.toArray(CompletableFuture[]::new)).join();
+        } while (batch.size() >= batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${sms.outbox.recovery-interval-ms:60000}")
+    public void releaseStaleClaims() {
+        int released = outboxService.releaseStaleClaims(Duration.ofSeconds(claimTimeoutSeconds));
+        if (released > 0) {
+            log.warn("Returned {} stale SMS outbox claims to the pending queue", released);
+        }
+    }
+
+    /**
+     * Sends one text covering one or more outbox messages and records the
+     * outcome when the provider answers: on success the provider's message id
+     * is recorded for delivery status tracking, and a failure is recorded on
+     * each of them, so each follows its own retry schedule.
+     */
+    private CompletableFuture<Void> deliver(SmsCoalescer.Merged<SmsOutboxMessage> text) {
+        String destination = text.parts().get(0).getDestination();
+        return smsService.sendSmsAsync(destination, text.message())
+                .handle((messageSid, failure) -> {
+                    try {
+                        if (failure == null) {
+                            outboxService.markSent(text.parts().stream().map(SmsOutboxMessage::getId).toList());
+                            statusService.recordSent(messageSid, destination,
+                                    SmsOutboxService.messageType(text.parts()), SmsOutboxService.studentId(text.parts()));
+                        } else {
+                            Exception cause = unwrap(failure);
+                            for (SmsOutboxMessage message : text.parts()) {
+                                recordFailure(message, cause);
+                            }
+                        }
+                    } catch (RuntimeException e) {
+                        // The claim times out and the messages are retried
+                        log.error("Could not record the outcome of SMS to {}: {}", destination, e.getMessage());
+                    }
+                    return null;
+                });
+    }
+
+    private static Exception unwrap(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        return cause instanceof Exception exception ? exception : new RuntimeException(cause);
+    }
+
+    private void recordFailure(SmsOutboxMessage message, Exception e) {
+        if (outboxService.recordFailure(message, e)) {
+            log.warn("Failed to deliver outbox SMS {} to {} (attempt {}), will retry: {}",
+                    message.getId(), message.getDestination(), message.getAttempts(), e.getMessage());
+        } else {
+            log.error("Failed to deliver outbox SMS {} to {} after {} attempts, dead-lettered: {}",
+                    message.getId(), message.getDestination(), message.getAttempts(), e.getMessage());
+        }
+    }
+}
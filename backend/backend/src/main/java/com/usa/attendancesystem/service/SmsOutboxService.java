@@ -0,0 +1,256 @@
+package com.usa.attendancesystem.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.usa.attendancesystem.dto.SmsDeadLetterDto;
+import com.usa.attendancesystem.dto.SmsDeadLetterPageDto;
+import com.usa.attendancesystem.model.SmsDeadLetter;
+import com.usa.attendancesystem.model.SmsMessageType;
+import com.usa.attendancesystem.model.SmsOutboxMessage;
+import com.usa.attendancesystem.model.SmsOutboxStatus;
+import com.usa.attendancesystem.repository.SmsDeadLetterRepository;
+import com.usa.attendancesystem.repository.SmsOutboxJdbcRepository;
+import com.usa.attendancesystem.repository.SmsOutboxRepository;
+import com.usa.attendancesystem.util.PhoneNumbers;
+
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class SmsOutboxService {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final SmsOutboxRepository outboxRepository;
+    private final SmsOutboxJdbcRepository outboxJdbcRepository;
+    private final SmsDeadLetterRepository deadLetterRepository;
+    private final SmsRetryPolicy retryPolicy;
+
+    @Value("${sms.coalesce.hold-seconds:5}")
+    private long holdSeconds;
+
+    @Value("${sms.coalesce.max-length:480}")
+    private int maxCoalescedLength;
+
+    /**
+     * Queues an SMS for background delivery. Joins the caller's transaction, so
+     * the message is committed (or rolled back) together with the change that
+     * triggered it.
+     *
+     * <p>
+     * The message is held for a short window first, so that other messages
+     * to the same phone queued meanwhile, e.g. a sibling's check-in, go out
+     * merged with it.
+     *
+     * @param studentId the student the message is about, or null
+     */
+    @Transactional
+    public void enqueue(String toPhoneNumber, String message, SmsMessageType messageType, UUID studentId) {
+        SmsOutboxMessage outboxMessage = new SmsOutboxMessage(toPhoneNumber, message, messageType, studentId);
+        outboxMessage.setAvailableAt(holdUntil());
+        outboxRepository.save(outboxMessage);
+    }
+
+    /**
+     * Queues several messages with one JDBC batch, in the caller's transaction.
+     * Messages for the same phone are merged before they are queued, and all
+     * are held like {@link #enqueue} messages. A merged text goes to the
+     * number of its first message, as stored.
+     */
+    @Transactional
+    public void enqueueAll(List<SmsOutboxMessage> messages) {
+        Instant availableAt = holdUntil();
+        List<SmsOutboxMessage> merged = new ArrayList<>(messages.size());
+        for (SmsCoalescer.Merged<SmsOutboxMessage> text : coalesceByDestination(messages)) {
+            SmsOutboxMessage message = new SmsOutboxMessage(text.parts().get(0).getDestination(), text.message(),
+                    messageType(text.parts()), studentId(text.parts()));
+            message.setAvailableAt(availableAt);
+            merged.add(message);
+        }
+        outboxJdbcRepository.insertAll(merged);
+    }
+
+    /**
+     * Claims up to {@code limit} due messages for delivery. Claimed rows are
+     * moved to SENDING and committed before any network call is made.
+     *
+     * <p>
+     * Messages still held for the same phones are claimed along with them,
+     * so the dispatcher can merge them; the result may hold more than
+     * {@code limit} messages. Messages waiting for a retry are left alone.
+     */
+    @Transactional
+    public List<SmsOutboxMessage> claimBatch(int limit) {
+        Instant now = Instant.now();
+        List<SmsOutboxMessage> batch = new ArrayList<>(outboxRepository.findDispatchableForUpdate(now, limit));
+        if (!batch.isEmpty()) {
+            Set<String> destinationKeys = batch.stream()
+                    .map(message -> PhoneNumbers.normalize(message.getDestination()))
+                    .collect(Collectors.toSet());
+            Set<Long> ids = batch.stream().map(SmsOutboxMessage::getId).collect(Collectors.toSet());
+            batch.addAll(outboxRepository.findHeldForUpdate(destinationKeys, ids));
+        }
+        for (SmsOutboxMessage message : batch) {
+            message.setStatus(SmsOutboxStatus.SENDING);
+            message.setClaimedAt(now);
+            message.setAttempts(message.getAttempts() + 1);
+        }
+        return batch;
+    }
+
+    @Transactional
+    public void markSent(Collection<Long> messageIds) {
+        outboxRepository.markSent(messageIds, SmsOutboxStatus.SENT, Instant.now());
+    }
+
+    /**
+     * Groups claimed messages by normalized phone and merges each group into
+     * as few texts as the length limit allows, keeping queue order. Each text
+     * goes to the stored number of its first message.
+     */
+    List<SmsCoalescer.Merged<SmsOutboxMessage>> coalesceByDestination(List<SmsOutboxMessage> messages) {
+        Map<String, List<SmsOutboxMessage>> byDestination = new LinkedHashMap<>();
+        for (SmsOutboxMessage message : messages) {
+            byDestination.computeIfAbsent(PhoneNumbers.normalize(message.getDestination()), destination -> new ArrayList<>())
+                    .add(message);
+        }
+        List<SmsCoalescer.Merged<SmsOutboxMessage>> merged = new ArrayList<>();
+        for (List<SmsOutboxMessage> group : byDestination.values()) {
+            merged.addAll(SmsCoalescer.coalesce(group, SmsOutboxMessage::getMessage, maxCoalescedLength));
+        }
+        return merged;
+    }
+
+    /**
+     * The type of a text merged from the given messages: theirs if they share
+     * one, otherwise {@link SmsMessageType#COMBINED}.
+     */
+    static SmsMessageType messageType(List<SmsOutboxMessage> parts) {
+        SmsMessageType type = parts.get(0).getMessageType();
+        for (SmsOutboxMessage part : parts) {
+            if (part.getMessageType() != type) {
+                return SmsMessageType.COMBINED;
+            }
+        }
+        return type;
+    }
+
+    /**
+     * The student a text merged from the given messages is about, or null if
+     * they are about different students.
+     */
+    static UUID studentId(List<SmsOutboxMessage> parts) {
+        UUID studentId = parts.get(0).getStudentId();
+        for (SmsOutboxMessage part : parts) {
+            if (studentId == null || !studentId.equals(part.getStudentId())) {
+                return null;
+            }
+        }
+        return studentId;
+    }
+
+    /**
+     * Handles a failed delivery of a claimed message: back to the pending
+     * queue after a backoff if the retry policy allows another attempt,
+     * otherwise marked FAILED and dead-lettered.
+     *
+     * @return true if the message will be retried
+     */
+    @Transactional
+    public boolean recordFailure(SmsOutboxMessage message, Exception failure) {
+        String error = truncate(failure.getMessage());
+        if (retryPolicy.shouldRetry(message.getAttempts(), failure)) {
+            outboxRepository.scheduleRetry(message.getId(), SmsOutboxStatus.PENDING,
+                    Instant.now().plus(retryPolicy.backoff(message.getAttempts())), error);
+            return true;
+        }
+        outboxRepository.markFailed(message.getId(), SmsOutboxStatus.FAILED, error);
+        deadLetterRepository.save(new SmsDeadLetter(message.getId(), message.getDestination(), message.getMessage(),
+                message.getMessageType(), message.getStudentId(), message.getAttempts(), error));
+        return false;
+    }
+
+    /**
+     * Handles a failed first attempt at a broadcast message, which is sent
+     * outside the outbox: the message is queued in the outbox for a retry after a
+     * backoff, or dead-lettered if it cannot succeed.
+     *
+     * @return true if the message will be retried
+     */
+    @Transactional
+    public boolean recordFailure(String destination, String message, Exception failure) {
+        String error = truncate(failure.getMessage());
+        if (retryPolicy.shouldRetry(1, failure)) {
+            SmsOutboxMessage retry = new SmsOutboxMessage(destination, message, SmsMessageType.BROADCAST, null);
+            retry.setAttempts(1);
+            retry.setAvailableAt(Instant.now().plus(retryPolicy.backoff(1)));
+            retry.setLastError(error);
+            outboxRepository.save(retry);
+            return true;
+        }
+        deadLetterRepository.save(new SmsDeadLetter(null, destination, message, SmsMessageType.BROADCAST, null, 1, error));
+        return false;
+    }
+
+    @Transactional(readOnly = true)
+    public SmsDeadLetterPageDto getDeadLetters(int page, int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("page must be 0 or more and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        Page<SmsDeadLetter> letters = deadLetterRepository.findOpen(PageRequest.of(page, size));
+        List<SmsDeadLetterDto> content = letters.getContent().stream()
+                .map(letter -> new SmsDeadLetterDto(letter.getId(), letter.getOutboxId(), letter.getDestination(),
+                letter.getMessage(), letter.getAttempts(), letter.getLastError(), letter.getFailedAt()))
+                .toList();
+        return new SmsDeadLetterPageDto(content, page, size, letters.getTotalElements(), letters.getTotalPages());
+    }
+
+    /**
+     * Queues the given dead letters for delivery again, with a fresh attempt
+     * count. Letters already replayed are skipped.
+     *
+     * @return the number of messages queued
+     */
+    @Transactional
+    public int replayDeadLetters(List<Long> ids) {
+        return deadLetterRepository.replay(ids);
+    }
+
+    @Transactional
+    public int replayAllDeadLetters() {
+        return deadLetterRepository.replayAll();
+    }
+
+    @Transactional
+    public int releaseStaleClaims(Duration claimTimeout) {
+        return outboxRepository.releaseStaleClaims(
+                SmsOutboxStatus.PENDING, SmsOutboxStatus.SENDING, Instant.now().minus(claimTimeout));
+    }
+
+    private Instant holdUntil() {
+        return Instant.now().plusSeconds(holdSeconds);
+    }
+
+    private String truncate(String error) {
+        if (error == null || error.length() <= MAX_ERROR_LENGTH) {
+            return error;
+        }
+        return error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
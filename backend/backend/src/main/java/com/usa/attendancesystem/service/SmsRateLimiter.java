@@ -0,0 +1,46 @@
+package com.usa.attendancesystem.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket limiting how many SMS are handed to the provider per second.
+ * Up to {@code burst} permits are granted at once after a quiet period; after
+ * that, one per interval. Callers that have to wait sleep outside the lock, so
+ * a waiting virtual thread holds nothing.
+ */
+final class SmsRateLimiter {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+
+    /**
+     * When the next permit is due. Lags behind the clock while the bucket is
+     * refilling, at most by the burst.
+     */
+    private long nextPermitNanos;
+
+    /**
+     * @param permitsPerSecond 0 or less disables the limit
+     */
+    SmsRateLimiter(double permitsPerSecond, int burst) {
+        this.intervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+        this.burstNanos = (Math.max(burst, 1) - 1) * intervalNanos;
+        this.nextPermitNanos = System.nanoTime() - burstNanos;
+    }
+
+    void acquire() throws InterruptedException {
+        if (intervalNanos == 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long permitAt = Math.max(nextPermitNanos, now - burstNanos);
+            nextPermitNanos = permitAt + intervalNanos;
+            waitNanos = permitAt - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.usa.attendancesystem.service;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.usa.attendancesystem.exception.SmsDeliveryException;
+
+/**
+ * Decides whether a failed SMS is tried again and when. The delay doubles
+ * with each attempt up to a cap, and half of it is random, so messages
+ * throttled together do not all come back at the same moment.
+ */
+@Component
+public class SmsRetryPolicy {
+
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    public SmsRetryPolicy(
+            @Value("${sms.retry.max-attempts:6}") int maxAttempts,
+            @Value("${sms.retry.initial-backoff-ms:2000}") long initialBackoffMs,
+            @Value("${sms.retry.max-backoff-ms:600000}") long maxBackoffMs) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    /**
+     * Failures other than a non-retryable {@link SmsDeliveryException} are
+     * treated as retryable, since nothing says they are permanent.
+     *
+     * @param attempts how many times the message has been tried, including
+     * the one that just failed
+     */
+    public boolean shouldRetry(int attempts, Exception failure) {
+        if (failure instanceof SmsDeliveryException delivery && !delivery.isRetryable()) {
+            return false;
+        }
+        return attempts < maxAttempts;
+    }
+
+    /**
+     * How long to wait before trying a message again after the given number
+     * of attempts: between half and all of initial * 2^(attempts - 1),
+     * capped.
+     */
+    public Duration backoff(int attempts) {
+        int doublings = Math.min(Math.max(attempts - 1, 0), 30);
+        long ceiling = Math.min(initialBackoffMs << doublings, maxBackoffMs);
+        long half = ceiling / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(ceiling - half + 1));
+    }
+}
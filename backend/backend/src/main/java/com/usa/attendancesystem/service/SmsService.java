@@ -1,5 +1,33 @@
 package com.usa.attendancesystem.service;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface SmsService {
+
+    /**
+     * Sends one SMS, returning once the provider has accepted it.
+     *
+     * @throws com.usa.attendancesystem.exception.SmsDeliveryException if the
+     * provider did not accept it; callers decide whether to retry
+     */
     void sendSms(String toPhoneNumber, String message);
-}
\ No newline at end of file
+
+    /**
+     * Sends one SMS without waiting for the provider. The future completes
+     * with the provider's message id (null if it has none) once the message
+     * is accepted, or exceptionally with an
+     * {@link com.usa.attendancesystem.exception.SmsDeliveryException}.
+     *
+     * <p>
+     * By default this sends synchronously on the calling thread; clients
+     * with non-blocking I/O override it.
+     */
+    default CompletableFuture<String> sendSmsAsync(String toPhoneNumber, String message) {
+        try {
+            sendSms(toPhoneNumber, message);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
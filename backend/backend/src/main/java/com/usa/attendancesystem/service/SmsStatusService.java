@@ -0,0 +1,130 @@
+package com.usa.attendancesystem.service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.twilio.security.RequestValidator;
+import com.usa.attendancesystem.dto.SmsMessageDto;
+import com.usa.attendancesystem.dto.SmsMessagePageDto;
+import com.usa.attendancesystem.model.SmsDeliveryStatus;
+import com.usa.attendancesystem.model.SmsMessage;
+import com.usa.attendancesystem.model.SmsMessageType;
+import com.usa.attendancesystem.repository.SmsMessageJdbcRepository.StatusUpdate;
+import com.usa.attendancesystem.repository.SmsMessageRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Delivery status of sent SMS. Sends are recorded when the provider accepts
+ * them, and the provider's status callbacks move them on; both are applied in
+ * the background by {@link SmsStatusWriter}, so neither a send nor a callback
+ * waits for the database.
+ */
+@Service
+@Slf4j
+public class SmsStatusService {
+
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_DESTINATION_LENGTH = 20;
+    private static final int MAX_SID_LENGTH = 64;
+    private static final int MAX_ERROR_CODE_LENGTH = 10;
+
+    private final SmsStatusWriter statusWriter;
+    private final SmsMessageRepository messageRepository;
+    private final RequestValidator requestValidator;
+    private final String callbackUrl;
+    private final boolean verifySignature;
+
+    public SmsStatusService(
+            SmsStatusWriter statusWriter,
+            SmsMessageRepository messageRepository,
+            @Value("${twilio.auth.token}") String authToken,
+            @Value("${twilio.status-callback.url:}") String callbackUrl,
+            @Value("${twilio.status-callback.verify-signature:true}") boolean verifySignature) {
+        this.statusWriter = statusWriter;
+        this.messageRepository = messageRepository;
+        this.requestValidator = new RequestValidator(authToken);
+        this.callbackUrl = callbackUrl;
+        this.verifySignature = verifySignature;
+    }
+
+    /**
+     * Records a message the provider accepted. Messages without a provider id,
+     * e.g. from the mock SMS service, are not recorded.
+     */
+    public void recordSent(String messageSid, String destination, SmsMessageType messageType, UUID studentId) {
+        if (messageSid == null || messageSid.length() > MAX_SID_LENGTH) {
+            return;
+        }
+        Instant now = Instant.now();
+        StatusUpdate sent = new StatusUpdate(messageSid, truncate(destination, MAX_DESTINATION_LENGTH), studentId,
+                messageType, SmsDeliveryStatus.QUEUED, null, now, now);
+        if (!statusWriter.offer(sent)) {
+            log.warn("SMS status buffer full; send of {} to {} not recorded", messageSid, destination);
+        }
+    }
+
+    /**
+     * Checks that a status callback was signed by the provider with our auth
+     * token, for the callback URL we gave it.
+     */
+    public boolean isAuthentic(Map<String, String> params, String signature) {
+        if (!verifySignature) {
+            return true;
+        }
+        if (callbackUrl.isBlank() || signature == null) {
+            return false;
+        }
+        return requestValidator.validate(callbackUrl, params, signature);
+    }
+
+    /**
+     * Buffers the status reported by a callback. Callbacks without a message
+     * id or with a status we do not track are accepted and ignored, so the
+     * provider does not retry them.
+     *
+     * @return false if the buffer is full and the provider should retry later
+     */
+    public boolean ingestCallback(Map<String, String> params) {
+        String messageSid = params.get("MessageSid");
+        Optional<SmsDeliveryStatus> status = SmsDeliveryStatus.fromProvider(params.get("MessageStatus"));
+        if (messageSid == null || messageSid.isBlank() || messageSid.length() > MAX_SID_LENGTH || status.isEmpty()) {
+            log.debug("Ignoring SMS status callback for {} with status {}", messageSid, params.get("MessageStatus"));
+            return true;
+        }
+        Instant now = Instant.now();
+        return statusWriter.offer(new StatusUpdate(messageSid,
+                truncate(params.getOrDefault("To", ""), MAX_DESTINATION_LENGTH), null, null, status.get(),
+                truncate(params.get("ErrorCode"), MAX_ERROR_CODE_LENGTH), now, now));
+    }
+
+    @Transactional(readOnly = true)
+    public SmsMessagePageDto getMessagesForStudent(UUID studentId, int page, int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("page must be 0 or more and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        Page<SmsMessage> messages = messageRepository.findByStudent(studentId, PageRequest.of(page, size));
+        List<SmsMessageDto> content = messages.getContent().stream()
+                .map(message -> new SmsMessageDto(message.getMessageSid(), message.getDestination(),
+                message.getStudentId(), message.getMessageType(), message.getStatus(), message.getErrorCode(),
+                message.getCreatedAt(), message.getStatusUpdatedAt()))
+                .toList();
+        return new SmsMessagePageDto(content, page, size, messages.getTotalElements(), messages.getTotalPages());
+    }
+
+    private static String truncate(String value, int maxLength) {
+        if (value == null || value.length() <= maxLength) {
+            return value;
+        }
+        return value.substring(0, maxLength);
+    }
+}
@@ -0,0 +1,155 @@
+package com.usa.attendancesystem.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.usa.attendancesystem.repository.SmsMessageJdbcRepository;
+import com.usa.attendancesystem.repository.SmsMessageJdbcRepository.StatusUpdate;
+import com.usa.attendancesystem.util.DataAccessFailures;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-behind for the SMS message store. Send results and delivery status
+ * callbacks are put in a bounded in-memory buffer, and a flusher drains it
+ * every second or so: updates for the same message are merged, and the rest
+ * are written with one batched upsert, instead of one statement per callback.
+ *
+ * <p>
+ * The buffer is not journaled, so updates not yet flushed are lost on a
+ * crash. That only leaves a status behind; the message itself was sent. For
+ * the same reason an update that cannot be written at all is logged and
+ * dropped rather than retried; if the database itself is down, updates are
+ * kept for the next tick.
+ */
+@Service
+@Slf4j
+public class SmsStatusWriter {
+
+    private final SmsMessageJdbcRepository messageJdbcRepository;
+    private final BlockingQueue<StatusUpdate> buffer;
+    private final int flushBatchSize;
+
+    // Updates to write before anything new in the buffer; only touched by flush(), which is synchronized
+    private final Deque<StatusUpdate> carryOver = new ArrayDeque<>();
+
+    public SmsStatusWriter(
+            SmsMessageJdbcRepository messageJdbcRepository,
+            @Value("${sms.status.buffer-capacity:50000}") int bufferCapacity,
+            @Value("${sms.status.flush-batch-size:1000}") int flushBatchSize) {
+        this.messageJdbcRepository = messageJdbcRepository;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.flushBatchSize = flushBatchSize;
+    }
+
+    /**
+     * Accepts an update without touching the database.
+     *
+     * @return false if the buffer is full
+     */
+    public boolean offer(StatusUpdate update) {
+        return buffer.offer(update);
+    }
+
+    @Scheduled(fixedDelayString = "${sms.status.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        while (true) {
+            List<StatusUpdate> drained = new ArrayList<>(flushBatchSize);
+            while (!carryOver.isEmpty() && drained.size() < flushBatchSize) {
+                drained.add(carryOver.pollFirst());
+            }
+            buffer.drainTo(drained, flushBatchSize - drained.size());
+            if (drained.isEmpty()) {
+                return;
+            }
+
+            if (!write(mergeByMessage(drained)) || drained.size() < flushBatchSize) {
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Writes a batch, falling back to one update at a time if it fails.
+     *
+     * @return false if the database could not be reached; the unwritten
+     * updates are queued again, ahead of anything newer
+     */
+    private boolean write(List<StatusUpdate> batch) {
+        try {
+            messageJdbcRepository.upsertAll(batch);
+            return true;
+        } catch (RuntimeException e) {
+            if (DataAccessFailures.isTransient(e)) {
+                log.error("Failed to write {} SMS status updates, will retry: {}", batch.size(), e.getMessage());
+                requeue(batch);
+                return false;
+            }
+            log.warn("Failed to write {} SMS status updates, writing them one by one: {}", batch.size(), e.getMessage());
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                messageJdbcRepository.upsertAll(List.of(batch.get(i)));
+            } catch (RuntimeException e) {
+                if (DataAccessFailures.isTransient(e)) {
+                    log.error("Failed to write SMS status updates, will retry: {}", e.getMessage());
+                    requeue(batch.subList(i, batch.size()));
+                    return false;
+                }
+                log.error("Dropping SMS status update {}, which cannot be written: {}", batch.get(i), e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private void requeue(List<StatusUpdate> updates) {
+        for (int i = updates.size() - 1; i >= 0; i--) {
+            carryOver.addFirst(updates.get(i));
+        }
+    }
+
+    /**
+     * Merges updates for the same message, as the upsert would have applied
+     * them one by one, so each message appears once in the batch. The batch
+     * is ordered by message SID, so concurrent writers lock rows in the same
+     * order.
+     */
+    static List<StatusUpdate> mergeByMessage(List<StatusUpdate> updates) {
+        Map<String, StatusUpdate> byMessage = new TreeMap<>();
+        for (StatusUpdate update : updates) {
+            byMessage.merge(update.messageSid(), update, SmsStatusWriter::merge);
+        }
+        return new ArrayList<>(byMessage.values());
+    }
+
+    private static StatusUpdate merge(StatusUpdate current, StatusUpdate next) {
+        StatusUpdate latest = next.status().rank() > current.status().rank() ? next : current;
+        StatusUpdate sent = current.messageType() != null ? current : next;
+        return new StatusUpdate(
+                current.messageSid(),
+                sent.destination(),
+                current.studentId() != null ? current.studentId() : next.studentId(),
+                sent.messageType(),
+                latest.status(),
+                latest.errorCode(),
+                current.createdAt().isBefore(next.createdAt()) ? current.createdAt() : next.createdAt(),
+                latest.statusUpdatedAt());
+    }
+}
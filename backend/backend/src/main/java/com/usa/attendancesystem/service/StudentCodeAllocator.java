@@ -0,0 +1,77 @@
+package com.usa.attendancesystem.service;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.stereotype.Service;
+
+import com.usa.attendancesystem.repository.StudentCodeRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Hands out student ID codes (STU001, STU002, ...) and index numbers (IDX001,
+ * IDX002, ...) from database sequences, so allocation costs the same however
+ * many students exist and concurrent imports and sign-ups never clash.
+ */
+@Service
+@RequiredArgsConstructor
+public class StudentCodeAllocator {
+
+    private static final Pattern STUDENT_ID_CODE = Pattern.compile("STU(\\d{1,18})");
+
+    private final StudentCodeRepository studentCodeRepository;
+
+    public record StudentCodes(String studentIdCode, String indexNumber) {
+
+    }
+
+    /**
+     * Allocates codes for the given number of new students, in ascending
+     * order.
+     */
+    public List<StudentCodes> reserve(int count) {
+        if (count <= 0) {
+            return List.of();
+        }
+        return studentCodeRepository.nextNumbers(count).stream()
+                .map(numbers -> new StudentCodes(studentIdCode(numbers.studentIdNumber()), indexNumber(numbers.indexNumber())))
+                .toList();
+    }
+
+    public String nextIndexNumber() {
+        return indexNumber(studentCodeRepository.nextValue(StudentCodeRepository.INDEX_NUMBER_SEQUENCE));
+    }
+
+    /**
+     * The student ID code the next allocation would use, for display. Nothing
+     * is reserved.
+     */
+    public String peekStudentIdCode() {
+        return studentIdCode(studentCodeRepository.peekValue(StudentCodeRepository.STUDENT_ID_CODE_SEQUENCE));
+    }
+
+    /**
+     * Records that a student ID code was chosen by hand, e.g. the suggested
+     * code submitted with a new student, so that the sequence never hands it
+     * out again. Codes outside the STU pattern are ignored.
+     */
+    public void claimStudentIdCode(String studentIdCode) {
+        if (studentIdCode == null) {
+            return;
+        }
+        Matcher matcher = STUDENT_ID_CODE.matcher(studentIdCode.trim());
+        if (matcher.matches()) {
+            studentCodeRepository.advancePast(StudentCodeRepository.STUDENT_ID_CODE_SEQUENCE, Long.parseLong(matcher.group(1)));
+        }
+    }
+
+    private static String studentIdCode(long number) {
+        return String.format("STU%03d", number);
+    }
+
+    private static String indexNumber(long number) {
+        return String.format("IDX%03d", number);
+    }
+}
@@ -0,0 +1,66 @@
+package com.usa.attendancesystem.service;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.usa.attendancesystem.repository.StudentJdbcRepository;
+
+/**
+ * Recognises students an import would create twice: two students are the
+ * same when their full names match, ignoring case and extra spaces, and their
+ * parent phones have the same digits. Built once per import from existing
+ * students, then extended with each row as it is accepted, so a row is
+ * checked against the database and the earlier rows of the same file with a
+ * single hash lookup.
+ *
+ * <p>
+ * Not thread-safe; rows must be claimed in file order by the writer.
+ */
+final class StudentDuplicateIndex {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern NON_DIGITS = Pattern.compile("[^0-9]");
+
+    /**
+     * Who holds each key: an existing student's ID code, or the file row
+     * that claimed it.
+     */
+    private final Map<String, String> owners = new HashMap<>();
+
+    static StudentDuplicateIndex of(StudentJdbcRepository studentJdbcRepository) {
+        StudentDuplicateIndex index = new StudentDuplicateIndex();
+        studentJdbcRepository.forEachDuplicateKey(existing -> index.owners.putIfAbsent(
+                key(existing.fullName(), existing.parentPhone()),
+                "existing student " + existing.studentIdCode()));
+        return index;
+    }
+
+    int size() {
+        return owners.size();
+    }
+
+    /**
+     * Claims the key for the given row.
+     *
+     * @return null if the row is new, otherwise a description of the student
+     * it duplicates
+     */
+    String claim(String fullName, String parentPhone, int rowNumber) {
+        return owners.putIfAbsent(key(fullName, parentPhone), "row " + rowNumber);
+    }
+
+    /**
+     * Gives up a claim, e.g. when the row could not be inserted after all.
+     */
+    void release(String fullName, String parentPhone) {
+        owners.remove(key(fullName, parentPhone));
+    }
+
+    private static String key(String fullName, String parentPhone) {
+        String name = fullName == null ? "" : WHITESPACE.matcher(fullName.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+        String phone = parentPhone == null ? "" : NON_DIGITS.matcher(parentPhone).replaceAll("");
+        return name + '|' + phone;
+    }
+}
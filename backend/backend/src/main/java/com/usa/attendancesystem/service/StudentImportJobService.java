@@ -0,0 +1,369 @@
+package com.usa.attendancesystem.service;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.usa.attendancesystem.dto.CsvImportResultDto;
+import com.usa.attendancesystem.dto.StudentImportJobDto;
+import com.usa.attendancesystem.dto.StudentPageDto;
+import com.usa.attendancesystem.exception.ResourceNotFoundException;
+import com.usa.attendancesystem.model.StudentImportJob;
+import com.usa.attendancesystem.model.StudentImportJobStatus;
+import com.usa.attendancesystem.model.StudentImportMode;
+import com.usa.attendancesystem.repository.StudentImportJobRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs student imports as background jobs. An upload is spooled to a temp
+ * file and queued on a bounded worker pool, and the caller gets a job id back
+ * straight away. Live progress is kept in memory while a job runs; the job
+ * row records the final counts and the full {@link CsvImportResultDto}, so
+ * results survive a restart. The stored result keeps only the first
+ * {@code student.import.max-reported-errors} errors; every error goes to the
+ * job's CSV error report in {@code student.import.report-dir}, and the
+ * created students are listed page by page from the students table.
+ *
+ * <p>
+ * Several servers may share the job table. Each job records the server
+ * running it, which refreshes a heartbeat on its unfinished jobs; a job is
+ * only failed as abandoned by its own server restarting or once its heartbeat
+ * has gone stale.
+ */
+@Service
+@Slf4j
+public class StudentImportJobService {
+
+    private static final String INTERRUPTED_MESSAGE = "Import was interrupted by a server restart. Please upload the file again.";
+    private static final Set<StudentImportJobStatus> UNFINISHED
+            = EnumSet.of(StudentImportJobStatus.QUEUED, StudentImportJobStatus.RUNNING);
+
+    private final StudentImportJobRepository jobRepository;
+    private final CsvImportService csvImportService;
+    private final StudentService studentService;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor workers;
+    private final Path reportDirectory;
+    private final int maxReportedErrors;
+    private final String instanceId;
+    private final Duration heartbeatTimeout;
+
+    private final ConcurrentMap<UUID, RunningImport> runningImports = new ConcurrentHashMap<>();
+
+    private record RunningImport(StudentImportProgress progress, ImportErrorReport errorReport) {
+
+    }
+
+    public StudentImportJobService(
+            StudentImportJobRepository jobRepository,
+            CsvImportService csvImportService,
+            StudentService studentService,
+            ObjectMapper objectMapper,
+            @Value("${student.import.workers:2}") int workerCount,
+            @Value("${student.import.queue-capacity:10}") int queueCapacity,
+            @Value("${student.import.report-dir:./data/import-reports}") String reportDirectory,
+            @Value("${student.import.max-reported-errors:100}") int maxReportedErrors,
+            @Value("${student.import.instance-id:}") String instanceId,
+            @Value("${student.import.heartbeat-timeout-ms:120000}") long heartbeatTimeoutMs) {
+        this.jobRepository = jobRepository;
+        this.csvImportService = csvImportService;
+        this.studentService = studentService;
+        this.objectMapper = objectMapper;
+        this.reportDirectory = Paths.get(reportDirectory);
+        this.maxReportedErrors = maxReportedErrors;
+        String owner = instanceId.isBlank() ? defaultInstanceId() : instanceId;
+        this.instanceId = owner.length() > 100 ? owner.substring(0, 100) : owner;
+        this.heartbeatTimeout = Duration.ofMillis(heartbeatTimeoutMs);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "student-import-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PostConstruct
+    void createReportDirectory() throws IOException {
+        Files.createDirectories(reportDirectory);
+    }
+
+    /**
+     * Queues an import and returns immediately.
+     *
+     * @throws IllegalStateException if the import queue is full
+     */
+    public StudentImportJobDto submit(MultipartFile file, StudentImportMode mode, String createdBy) {
+        Path spooled = spool(file);
+        StudentImportJob job = jobRepository.save(new StudentImportJob(file.getOriginalFilename(), mode, createdBy, instanceId));
+        ImportErrorReport errorReport = new ImportErrorReport(errorReportPath(job.getId()));
+        RunningImport running = new RunningImport(new StudentImportProgress(maxReportedErrors, errorReport), errorReport);
+        runningImports.put(job.getId(), running);
+
+        try {
+            workers.execute(() -> run(job.getId(), job.getFileName(), mode, spooled, running));
+        } catch (RejectedExecutionException e) {
+            runningImports.remove(job.getId());
+            deleteQuietly(spooled);
+            finish(job.getId(), StudentImportJobStatus.FAILED, null, null, "Import queue is full");
+            throw new IllegalStateException("Too many imports are in progress. Please try again later.");
+        }
+        log.info("Queued {} import job {} for file {}", mode, job.getId(), job.getFileName());
+        return toDto(job);
+    }
+
+    /**
+     * @param countsOnly leave out the stored result and report only the
+     * counts
+     */
+    @Transactional(readOnly = true)
+    public StudentImportJobDto getJob(UUID jobId, boolean countsOnly) {
+        StudentImportJobDto job = toDto(findJob(jobId));
+        if (!countsOnly || job.result() == null) {
+            return job;
+        }
+        return new StudentImportJobDto(job.id(), job.fileName(), job.mode(), job.status(), job.rowsParsed(),
+                job.rowsImported(), job.rowsFailed(), job.errorMessage(), job.createdAt(), job.startedAt(),
+                job.finishedAt(), null);
+    }
+
+    /**
+     * Lists the students a job created, one page at a time. Works while the
+     * job is still running, showing the chunks committed so far.
+     */
+    @Transactional(readOnly = true)
+    public StudentPageDto getImportedStudents(UUID jobId, int page, int size) {
+        findJob(jobId);
+        return studentService.getStudentsByImportJob(jobId, page, size);
+    }
+
+    /**
+     * The CSV error report of a finished job: one line per rejected row with
+     * the column at fault, plus any problems with the file as a whole.
+     *
+     * @throws ResourceNotFoundException if the job had no errors
+     */
+    @Transactional(readOnly = true)
+    public Path getErrorReport(UUID jobId) {
+        StudentImportJob job = findJob(jobId);
+        if (!job.isFinished()) {
+            throw new IllegalStateException("Import job " + jobId + " is still running");
+        }
+        Path report = errorReportPath(jobId);
+        if (!Files.exists(report)) {
+            throw new ResourceNotFoundException("No error report for import job: " + jobId);
+        }
+        return report;
+    }
+
+    /**
+     * Asks a queued or running job to stop. A running job stops at its next
+     * chunk boundary; chunks already committed stay imported.
+     */
+    @Transactional(readOnly = true)
+    public StudentImportJobDto cancel(UUID jobId) {
+        StudentImportJob job = findJob(jobId);
+        RunningImport running = runningImports.get(jobId);
+        if (running == null || job.isFinished()) {
+            throw new IllegalStateException("Import job " + jobId + " has already finished");
+        }
+        running.progress().requestCancel();
+        log.info("Cancellation requested for import job {}", jobId);
+        return toDto(job);
+    }
+
+    /**
+     * Jobs that were queued or running when their server stopped cannot
+     * resume: their uploads were only spooled to temp files. On startup, mark
+     * this server's leftover jobs failed, and any other server's whose
+     * heartbeat is stale, so clients polling them get a final answer. Jobs
+     * another live server is running are left alone.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void failInterruptedJobs() {
+        failAbandonedJobs(instanceId);
+    }
+
+    /**
+     * Refreshes the heartbeat of this server's unfinished jobs, and fails the
+     * jobs of servers that stopped without coming back.
+     */
+    @Scheduled(fixedDelayString = "${student.import.heartbeat-interval-ms:30000}")
+    @Transactional
+    public void heartbeat() {
+        if (!runningImports.isEmpty()) {
+            jobRepository.touchHeartbeats(List.copyOf(runningImports.keySet()), UNFINISHED, Instant.now());
+        }
+        failAbandonedJobs(null);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runningImports.values().forEach(running -> running.progress().requestCancel());
+        workers.shutdown();
+    }
+
+    private void failAbandonedJobs(String owner) {
+        Instant now = Instant.now();
+        int abandoned = jobRepository.failAbandoned(UNFINISHED, owner, now.minus(heartbeatTimeout),
+                StudentImportJobStatus.FAILED, INTERRUPTED_MESSAGE, now);
+        if (abandoned > 0) {
+            log.warn("Marked {} interrupted student import jobs as failed", abandoned);
+        }
+    }
+
+    private void run(UUID jobId, String fileName, StudentImportMode mode, Path spooled, RunningImport running) {
+        StudentImportProgress progress = running.progress();
+        try {
+            if (progress.isCancelRequested()) {
+                CsvImportResultDto result = progress.toResult();
+                running.errorReport().close();
+                finish(jobId, StudentImportJobStatus.CANCELLED, progress, result, null);
+                return;
+            }
+
+            markRunning(jobId);
+            CsvImportResultDto result = csvImportService.importStudents(spooled, fileName, jobId, progress, mode);
+            StudentImportJobStatus status = progress.isCancelled()
+                    ? StudentImportJobStatus.CANCELLED
+                    : StudentImportJobStatus.COMPLETED;
+            // The report is complete before the job shows as finished
+            running.errorReport().close();
+            finish(jobId, status, progress, result, null);
+        } catch (RuntimeException e) {
+            log.error("Import job {} failed", jobId, e);
+            running.errorReport().close();
+            finish(jobId, StudentImportJobStatus.FAILED, progress, null, e.getMessage());
+        } finally {
+            running.errorReport().close();
+            runningImports.remove(jobId);
+            deleteQuietly(spooled);
+        }
+    }
+
+    private void markRunning(UUID jobId) {
+        StudentImportJob job = findJob(jobId);
+        job.setStatus(StudentImportJobStatus.RUNNING);
+        job.setStartedAt(Instant.now());
+        jobRepository.save(job);
+    }
+
+    private void finish(UUID jobId, StudentImportJobStatus status, StudentImportProgress progress,
+            CsvImportResultDto result, String errorMessage) {
+        StudentImportJob job = findJob(jobId);
+        job.setStatus(status);
+        if (progress != null) {
+            job.setRowsParsed(progress.rowsParsed());
+            job.setRowsImported(progress.rowsImported());
+            job.setRowsFailed(progress.rowsFailed());
+        }
+        job.setResult(result != null ? writeResult(result) : null);
+        job.setErrorMessage(errorMessage != null && errorMessage.length() > 500 ? errorMessage.substring(0, 500) : errorMessage);
+        job.setFinishedAt(Instant.now());
+        jobRepository.save(job);
+    }
+
+    private StudentImportJob findJob(UUID jobId) {
+        return jobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Import job not found with ID: " + jobId));
+    }
+
+    private Path spool(MultipartFile file) {
+        try {
+            Path spooled = Files.createTempFile("student-import-", "-" + UUID.randomUUID());
+            file.transferTo(spooled);
+            return spooled;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store uploaded file: " + e.getMessage(), e);
+        }
+    }
+
+    private static String defaultInstanceId() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return UUID.randomUUID().toString();
+        }
+    }
+
+    private Path errorReportPath(UUID jobId) {
+        return reportDirectory.resolve(jobId + "-errors.csv");
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete spooled import file {}: {}", path, e.getMessage());
+        }
+    }
+
+    private String writeResult(CsvImportResultDto result) {
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize import result", e);
+        }
+    }
+
+    private CsvImportResultDto readResult(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, CsvImportResultDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored import result", e);
+        }
+    }
+
+    private StudentImportJobDto toDto(StudentImportJob job) {
+        RunningImport running = runningImports.get(job.getId());
+        boolean live = running != null && !job.isFinished();
+        return new StudentImportJobDto(
+                job.getId(),
+                job.getFileName(),
+                job.getMode(),
+                job.getStatus(),
+                live ? running.progress().rowsParsed() : job.getRowsParsed(),
+                live ? running.progress().rowsImported() : job.getRowsImported(),
+                live ? running.progress().rowsFailed() : job.getRowsFailed(),
+                job.getErrorMessage(),
+                job.getCreatedAt(),
+                job.getStartedAt(),
+                job.getFinishedAt(),
+                job.isFinished() ? readResult(job.getResult()) : null
+        );
+    }
+}
@@ -0,0 +1,135 @@
+package com.usa.attendancesystem.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.usa.attendancesystem.dto.CsvImportResultDto;
+
+/**
+ * Running totals for one student import, filled in chunk by chunk by the
+ * importing thread. Counters can be read from other threads while the import
+ * runs, e.g. to report job progress, and cancellation can be requested from
+ * any thread; the import stops at the next chunk boundary.
+ *
+ * <p>
+ * Memory stays bounded however large the file: every error goes to the job's
+ * {@link ImportErrorReport}, but only the first few are kept for the result,
+ * and imported students are only counted. They can be listed afterwards by
+ * job.
+ */
+public class StudentImportProgress {
+
+    /**
+     * A problem found during the import. rowNumber is null for problems with
+     * the file as a whole, column when the problem is not tied to one column.
+     */
+    public record ImportError(Integer rowNumber, String column, String message) {
+
+        @Override
+        public String toString() {
+            return rowNumber != null ? String.format("Row %d: %s", rowNumber, message) : message;
+        }
+    }
+
+    private final int maxReportedErrors;
+    private final ImportErrorReport errorReport;
+    private final AtomicInteger rowsParsed = new AtomicInteger();
+    private final AtomicInteger rowsImported = new AtomicInteger();
+    private final AtomicInteger rowsFailed = new AtomicInteger();
+    private final List<ImportError> reportedErrors = new ArrayList<>();
+    private volatile boolean cancelRequested;
+    private volatile boolean cancelled;
+
+    /**
+     * @param maxReportedErrors how many errors are kept for the result; the
+     * error report always receives all of them
+     */
+    StudentImportProgress(int maxReportedErrors, ImportErrorReport errorReport) {
+        this.maxReportedErrors = maxReportedErrors;
+        this.errorReport = errorReport;
+    }
+
+    public int rowsParsed() {
+        return rowsParsed.get();
+    }
+
+    public int rowsImported() {
+        return rowsImported.get();
+    }
+
+    public int rowsFailed() {
+        return rowsFailed.get();
+    }
+
+    public void requestCancel() {
+        cancelRequested = true;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    /**
+     * True if the import stopped early because cancellation was requested.
+     * Chunks committed before that point stay imported.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    void rowsParsed(int count) {
+        rowsParsed.addAndGet(count);
+    }
+
+    void imported(int count) {
+        rowsImported.addAndGet(count);
+    }
+
+    /**
+     * Counts rows that passed every check in a dry run, where nothing is
+     * written.
+     */
+    void validated(int count) {
+        rowsImported.addAndGet(count);
+    }
+
+    void failed(int rowNumber, String column, String error) {
+        addError(new ImportError(rowNumber, column, error));
+        rowsFailed.incrementAndGet();
+    }
+
+    /**
+     * Records a problem with the file as a whole rather than with a row.
+     */
+    void fileError(String error) {
+        addError(new ImportError(null, null, error));
+    }
+
+    void markCancelled() {
+        cancelled = true;
+    }
+
+    /**
+     * The counts, with at most {@code maxReportedErrors} errors. Imported
+     * students are not included.
+     */
+    CsvImportResultDto toResult() {
+        int totalRows = rowsParsed.get();
+        int successfulImports = rowsImported.get();
+        List<String> errors;
+        synchronized (reportedErrors) {
+            errors = reportedErrors.stream().map(ImportError::toString).toList();
+        }
+        return new CsvImportResultDto(totalRows, successfulImports, totalRows - successfulImports, errors, List.of());
+    }
+
+    private void addError(ImportError error) {
+        errorReport.append(error);
+        synchronized (reportedErrors) {
+            if (reportedErrors.size() < maxReportedErrors) {
+                reportedErrors.add(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.usa.attendancesystem.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.usa.attendancesystem.dto.BatchDto;
+import com.usa.attendancesystem.dto.SubjectDto;
+
+/**
+ * Parses and validates one import row against preloaded {@link ImportLookups}.
+ * Has no side effects and never touches the database, so rows can be checked
+ * before any transaction is opened. Holds no mutable state, so one instance
+ * can validate rows from several threads at once.
+ */
+final class StudentRowValidator {
+
+    /**
+     * A row that passed validation, ready to be inserted.
+     */
+    record ValidatedStudent(
+            String fullName,
+            String parentPhone,
+            String studentPhone,
+            BatchDto batch,
+            Set<SubjectDto> subjects
+            ) {
+
+    }
+
+    /**
+     * A validation failure, with the column it was found in. column is null
+     * when the problem is not tied to a single column.
+     */
+    static final class InvalidRowException extends IllegalArgumentException {
+
+        private final String column;
+
+        InvalidRowException(String column, String message) {
+            super(message);
+            this.column = column;
+        }
+
+        String column() {
+            return column;
+        }
+    }
+
+    /**
+     * The column reported for rows that select no subject; subjects are
+     * spread over one column each.
+     */
+    static final String SUBJECTS_COLUMN = "Subjects";
+
+    // Sri Lankan phone number validation
+    // Mobile: 07XXXXXXXX (10 digits)
+    // Landline: 0XXXXXXXX (9-10 digits)
+    // Pattern: starts with 0, followed by 1-9, then 7-8 more digits
+    private static final Pattern PHONE_NUMBER = Pattern.compile("^0[1-9]\\d{7,8}$");
+    private static final Pattern NON_DIGITS = Pattern.compile("[^0-9]");
+
+    private final ImportLookups lookups;
+    private final String rowLabel;
+
+    /**
+     * @param rowLabel how a row is described in parse errors, e.g. "CSV record"
+     */
+    StudentRowValidator(ImportLookups lookups, String rowLabel) {
+        this.lookups = lookups;
+        this.rowLabel = rowLabel;
+    }
+
+    /**
+     * @throws InvalidRowException describing the first problem found
+     */
+    ValidatedStudent validate(Map<String, String> values) {
+        ParsedRow row = parse(values);
+
+        // Validate phone numbers (Sri Lankan format)
+        if (!isValidPhoneNumber(row.parentPhone())) {
+            throw new InvalidRowException("Parent Phone", "Invalid parent phone number format. Please use Sri Lankan format (e.g., 0771234567)");
+        }
+        if (row.studentPhone() != null && !isValidPhoneNumber(row.studentPhone())) {
+            throw new InvalidRowException("Student Phone", "Invalid student phone number format. Please use Sri Lankan format (e.g., 0771234567)");
+        }
+
+        BatchDto batch = lookups.batchesByYear().get(row.batchYear());
+        if (batch == null) {
+            throw new InvalidRowException("Batch Year", "Batch with year " + row.batchYear() + " not found");
+        }
+
+        if (row.subjectNames().isEmpty()) {
+            throw new InvalidRowException(SUBJECTS_COLUMN, "At least one subject is required");
+        }
+        Set<SubjectDto> subjects = new HashSet<>();
+        for (String subjectName : row.subjectNames()) {
+            subjects.add(lookups.subjectsByName().get(subjectName));
+        }
+
+        return new ValidatedStudent(row.fullName(), row.parentPhone(), row.studentPhone(), batch, subjects);
+    }
+
+    private record ParsedRow(
+            String fullName,
+            String parentPhone,
+            String studentPhone,
+            Integer batchYear,
+            List<String> subjectNames
+            ) {
+
+    }
+
+    private ParsedRow parse(Map<String, String> values) {
+        try {
+            String fullName = getFieldValue(values, "Full Name");
+            String parentPhone = getFieldValue(values, "Parent Phone");
+            String studentPhone = getOptionalFieldValue(values, "Student Phone");
+            String batchYearStr = getFieldValue(values, "Batch Year");
+
+            // Validate and parse batch year
+            Integer batchYear;
+            try {
+                batchYear = Integer.parseInt(batchYearStr.trim());
+            } catch (NumberFormatException e) {
+                throw new InvalidRowException("Batch Year", "Invalid batch year format: " + batchYearStr);
+            }
+
+            // Parse subjects from 1/0 columns
+            List<String> selectedSubjects = new ArrayList<>();
+            for (String subjectName : lookups.subjectNames()) {
+                String subjectValue = getOptionalFieldValue(values, subjectName);
+                if (subjectValue != null && ("1".equals(subjectValue.trim()) || "1.0".equals(subjectValue.trim()))) {
+                    selectedSubjects.add(subjectName);
+                }
+            }
+
+            return new ParsedRow(
+                    fullName.trim(),
+                    NON_DIGITS.matcher(parentPhone.trim()).replaceAll(""), // Remove non-digits
+                    studentPhone != null ? NON_DIGITS.matcher(studentPhone.trim()).replaceAll("") : null,
+                    batchYear,
+                    selectedSubjects
+            );
+        } catch (InvalidRowException e) {
+            throw new InvalidRowException(e.column(), "Error parsing " + rowLabel + ": " + e.getMessage());
+        } catch (Exception e) {
+            throw new InvalidRowException(null, "Error parsing " + rowLabel + ": " + e.getMessage());
+        }
+    }
+
+    private static String getFieldValue(Map<String, String> values, String header) {
+        if (!values.containsKey(header)) {
+            throw new InvalidRowException(header, "Missing required column: " + header);
+        }
+        String value = values.get(header);
+        if (value == null || value.trim().isEmpty()) {
+            throw new InvalidRowException(header, header + " is required but was empty");
+        }
+        return value;
+    }
+
+    private static String getOptionalFieldValue(Map<String, String> values, String header) {
+        String value = values.get(header);
+        return (value != null && !value.trim().isEmpty()) ? value : null;
+    }
+
+    private static boolean isValidPhoneNumber(String phoneNumber) {
+        if (phoneNumber == null || phoneNumber.trim().isEmpty()) {
+            return false;
+        }
+        return PHONE_NUMBER.matcher(phoneNumber).matches();
+    }
+}
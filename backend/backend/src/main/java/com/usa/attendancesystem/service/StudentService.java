@@ -1,24 +1,36 @@
 package com.usa.attendancesystem.service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.usa.attendancesystem.dto.BatchDto;
 import com.usa.attendancesystem.dto.CreateStudentRequest;
+import com.usa.attendancesystem.dto.StudentCursorPageDto;
 import com.usa.attendancesystem.dto.StudentDto;
+import com.usa.attendancesystem.dto.StudentPageDto;
+import com.usa.attendancesystem.dto.StudentSubjectRowDto;
 import com.usa.attendancesystem.dto.SubjectDto;
 import com.usa.attendancesystem.dto.UpdateStudentRequest;
 import com.usa.attendancesystem.exception.ResourceNotFoundException;
 import com.usa.attendancesystem.model.Batch;
 import com.usa.attendancesystem.model.Student;
+import com.usa.attendancesystem.model.StudentSortKey;
 import com.usa.attendancesystem.model.Subject;
 import com.usa.attendancesystem.repository.BatchRepository;
+import com.usa.attendancesystem.repository.StudentListingRepository;
 import com.usa.attendancesystem.repository.StudentRepository;
 import com.usa.attendancesystem.repository.SubjectRepository;
 
@@ -28,9 +40,15 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class StudentService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final char CURSOR_SEPARATOR = '|';
+
     private final StudentRepository studentRepository;
     private final BatchRepository batchRepository;
     private final SubjectRepository subjectRepository;
+    private final SessionRosterCache rosterCache;
+    private final StudentCodeAllocator studentCodeAllocator;
+    private final StudentListingRepository studentListingRepository;
 
     @Transactional
     public StudentDto createStudent(CreateStudentRequest request) {
@@ -47,7 +65,8 @@ public class StudentService {
         }
 
         // Auto-generate index number, use studentIdCode from request
-        String indexNumber = generateNextIndexNumber();
+        studentCodeAllocator.claimStudentIdCode(request.studentIdCode());
+        String indexNumber = studentCodeAllocator.nextIndexNumber();
 
         Student student = Student.builder()
                 .studentIdCode(request.studentIdCode())
@@ -61,79 +80,16 @@ public class StudentService {
                 .build();
 
         Student savedStudent = studentRepository.save(student);
+        rosterCache.invalidateAll();
         return mapToStudentDto(savedStudent);
     }
 
     /**
-     * Generates the next available index number in the format IDX001, IDX002,
-     * etc.
-     */
-    private String generateNextIndexNumber() {
-        List<Student> students = studentRepository.findAllOrderByIndexNumberDesc();
-
-        if (students.isEmpty()) {
-            return "IDX001";
-        }
-
-        // Find the highest numeric part from existing index numbers
-        int maxNumber = 0;
-        for (Student student : students) {
-            String indexNumber = student.getIndexNumber();
-            if (indexNumber.startsWith("IDX") && indexNumber.length() >= 6) {
-                try {
-                    String numericPart = indexNumber.substring(3);
-                    int number = Integer.parseInt(numericPart);
-                    maxNumber = Math.max(maxNumber, number);
-                } catch (NumberFormatException e) {
-                    // Skip invalid index numbers
-                    continue;
-                }
-            }
-        }
-
-        // Generate next index number
-        int nextNumber = maxNumber + 1;
-        return String.format("IDX%03d", nextNumber);
-    }
-
-    /**
-     * Public method to get the next available student ID code for frontend
-     * display.
+     * The student ID code the next new student would get, for the frontend to
+     * suggest. Reads the sequence without taking a number.
      */
     public String getNextStudentIdCode() {
-        return generateNextStudentIdCode();
-    }
-
-    /**
-     * Generates the next available student ID code in the format STU001,
-     * STU002, etc.
-     */
-    private String generateNextStudentIdCode() {
-        List<Student> students = studentRepository.findAllOrderByStudentIdCodeDesc();
-
-        if (students.isEmpty()) {
-            return "STU001";
-        }
-
-        // Find the highest numeric part from existing student ID codes
-        int maxNumber = 0;
-        for (Student student : students) {
-            String studentIdCode = student.getStudentIdCode();
-            if (studentIdCode.startsWith("STU") && studentIdCode.length() >= 6) {
-                try {
-                    String numericPart = studentIdCode.substring(3);
-                    int number = Integer.parseInt(numericPart);
-                    maxNumber = Math.max(maxNumber, number);
-                } catch (NumberFormatException e) {
-                    // Skip invalid student ID codes
-                    continue;
-                }
-            }
-        }
-
-        // Generate next student ID code
-        int nextNumber = maxNumber + 1;
-        return String.format("STU%03d", nextNumber);
+        return studentCodeAllocator.peekStudentIdCode();
     }
 
     @Transactional(readOnly = true)
@@ -160,13 +116,43 @@ public class StudentService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Every active student, filtered in the database and read with their
+     * batch and subjects in a single query.
+     */
     @Transactional(readOnly = true)
     public List<StudentDto> getAllActiveStudents() {
-        return studentRepository.findAll()
-                .stream()
-                .filter(Student::isActive)
-                .map(this::mapToStudentDto)
-                .collect(Collectors.toList());
+        return toStudentDtos(studentRepository.findActiveStudentRows());
+    }
+
+    /**
+     * Lists students one page at a time, filtered and sorted in the database.
+     * Pages are found by keyset: each cursor holds the sort key, and the sort
+     * value and id of the last student returned, so every page costs the same
+     * two queries however far into the list it is.
+     *
+     * @param active null lists active and inactive students alike
+     * @param cursor the nextCursor of the previous page, or null for the
+     * first page
+     * @throws IllegalArgumentException if the cursor is malformed or was
+     * issued for a different sort
+     */
+    @Transactional(readOnly = true)
+    public StudentCursorPageDto getStudentPage(Integer batchId, Integer subjectId, Boolean active,
+            StudentSortKey sort, int size, String cursor) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        StudentListingRepository.Cursor after = cursor == null || cursor.isBlank() ? null : decodeCursor(cursor, sort);
+
+        // One extra row tells whether another page follows
+        List<StudentDto> students = studentListingRepository.findPage(batchId, subjectId, active, sort, after, size + 1);
+        String nextCursor = null;
+        if (students.size() > size) {
+            students = students.subList(0, size);
+            nextCursor = encodeCursor(sort, students.get(size - 1));
+        }
+        return new StudentCursorPageDto(students, size, nextCursor);
     }
 
     @Transactional(readOnly = true)
@@ -176,6 +162,23 @@ public class StudentService {
         return mapToStudentDto(student);
     }
 
+    /**
+     * Lists the students an import job created, one page at a time. Loads the
+     * page's IDs first and then the students with their batch and subjects in
+     * one more query, so the cost depends on the page size, not the import.
+     */
+    @Transactional(readOnly = true)
+    public StudentPageDto getStudentsByImportJob(UUID jobId, int page, int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("page must be 0 or more and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        Page<UUID> ids = studentRepository.findIdsByImportJobId(jobId, PageRequest.of(page, size));
+        List<StudentDto> students = ids.isEmpty()
+                ? List.of()
+                : toStudentDtos(studentRepository.findStudentRowsByIds(ids.getContent()));
+        return new StudentPageDto(students, page, size, ids.getTotalElements(), ids.getTotalPages());
+    }
+
     @Transactional
     public StudentDto updateStudent(UUID studentId, UpdateStudentRequest request) {
         Student studentToUpdate = studentRepository.findById(studentId)
@@ -197,6 +200,7 @@ public class StudentService {
         studentToUpdate.setSubjects(subjects);
 
         Student updatedStudent = studentRepository.save(studentToUpdate);
+        rosterCache.invalidateAll();
         return mapToStudentDto(updatedStudent);
     }
 
@@ -206,6 +210,7 @@ public class StudentService {
                 .orElseThrow(() -> new ResourceNotFoundException("Student not found with ID: " + studentId));
         student.setActive(false);
         studentRepository.save(student);
+        rosterCache.invalidateAll();
     }
 
     @Transactional
@@ -216,6 +221,74 @@ public class StudentService {
         // Note: In a real application, you might want to check if the student has
         // any attendance records before allowing deletion
         studentRepository.delete(student);
+        rosterCache.invalidateAll();
+    }
+
+    private static String encodeCursor(StudentSortKey sort, StudentDto last) {
+        String sortValue = switch (sort) {
+            case STUDENT_ID_CODE ->
+                last.studentIdCode();
+            case INDEX_NUMBER ->
+                last.indexNumber();
+            case FULL_NAME ->
+                last.fullName();
+        };
+        // The sort key goes first and the id last: neither contains the separator, whatever the sort value does
+        String cursor = sort.name() + CURSOR_SEPARATOR + sortValue + CURSOR_SEPARATOR + last.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static StudentListingRepository.Cursor decodeCursor(String cursor, StudentSortKey sort) {
+        String sortKey;
+        StudentListingRepository.Cursor after;
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int keySeparator = decoded.indexOf(CURSOR_SEPARATOR);
+            int idSeparator = decoded.lastIndexOf(CURSOR_SEPARATOR);
+            sortKey = decoded.substring(0, keySeparator);
+            after = new StudentListingRepository.Cursor(decoded.substring(keySeparator + 1, idSeparator),
+                    UUID.fromString(decoded.substring(idSeparator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        // A value of one sort column would be compared against another, silently skipping or repeating students
+        if (!sortKey.equals(sort.name())) {
+            throw new IllegalArgumentException("Cursor was issued for sort " + sortKey + ", not " + sort);
+        }
+        return after;
+    }
+
+    /**
+     * Folds (student, subject) projection rows into StudentDtos, keeping the
+     * order in which students first appear. Lets list endpoints build full
+     * DTOs from a single query instead of lazily loading batch and subjects
+     * per student.
+     */
+    public List<StudentDto> toStudentDtos(List<StudentSubjectRowDto> rows) {
+        Map<UUID, StudentSubjectRowDto> students = new LinkedHashMap<>();
+        Map<UUID, Set<SubjectDto>> subjectsByStudent = new HashMap<>();
+        for (StudentSubjectRowDto row : rows) {
+            students.putIfAbsent(row.id(), row);
+            Set<SubjectDto> subjects = subjectsByStudent.computeIfAbsent(row.id(), id -> new HashSet<>());
+            // Outer-joined rows of students without subjects carry no subject
+            if (row.subjectId() != null) {
+                subjects.add(new SubjectDto(row.subjectId(), row.subjectName()));
+            }
+        }
+
+        return students.values().stream()
+                .map(row -> new StudentDto(
+                row.id(),
+                row.studentIdCode(),
+                row.indexNumber(),
+                row.fullName(),
+                row.parentPhone(),
+                row.studentPhone(),
+                row.isActive(),
+                new BatchDto(row.batchId(), row.batchYear()),
+                subjectsByStudent.get(row.id())
+        ))
+                .collect(Collectors.toList());
     }
 
     /**
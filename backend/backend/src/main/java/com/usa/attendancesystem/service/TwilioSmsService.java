@@ -1,48 +1,92 @@
 package com.usa.attendancesystem.service;
 
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 
 import com.twilio.Twilio;
+import com.twilio.exception.ApiConnectionException;
+import com.twilio.exception.ApiException;
 import com.twilio.rest.api.v2010.account.Message;
+import com.twilio.rest.api.v2010.account.MessageCreator;
 import com.twilio.type.PhoneNumber;
+import com.usa.attendancesystem.exception.SmsDeliveryException;
 
 @Service
 @Primary
-@ConditionalOnProperty(name = "twilio.enabled", havingValue = "true", matchIfMissing = false)
+// The async client replaces this one when twilio.async.enabled is true
+@ConditionalOnExpression("${twilio.enabled:false} and !${twilio.async.enabled:false}")
 public class TwilioSmsService implements SmsService {
 
     private static final Logger log = LoggerFactory.getLogger(TwilioSmsService.class);
 
     private final String fromNumber;
+    private final String statusCallbackUrl;
 
     // Spring injects the properties from your application.properties file
     public TwilioSmsService(
             @Value("${twilio.account.sid}") String accountSid,
             @Value("${twilio.auth.token}") String authToken,
-            @Value("${twilio.phone.number}") String fromNumber) {
+            @Value("${twilio.phone.number}") String fromNumber,
+            @Value("${twilio.status-callback.url:}") String statusCallbackUrl) {
         this.fromNumber = fromNumber;
+        this.statusCallbackUrl = statusCallbackUrl;
         Twilio.init(accountSid, authToken);
         log.info("Twilio initialized with account SID: {}", accountSid);
     }
 
     @Override
     public void sendSms(String toPhoneNumber, String messageBody) {
+        send(toPhoneNumber, messageBody);
+    }
+
+    /**
+     * Sends synchronously like {@link #sendSms}, but completes with the
+     * message SID so the send can be matched to its status callbacks.
+     */
+    @Override
+    public CompletableFuture<String> sendSmsAsync(String toPhoneNumber, String messageBody) {
+        try {
+            return CompletableFuture.completedFuture(send(toPhoneNumber, messageBody));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private String send(String toPhoneNumber, String messageBody) {
         try {
             // NOTE: You might need to format the 'toPhoneNumber' to include the country code, e.g., "+91" for India.
-            Message.creator(
+            MessageCreator creator = Message.creator(
                     new PhoneNumber(toPhoneNumber),
                     new PhoneNumber(fromNumber),
                     messageBody
-            ).create();
-            log.info("Successfully sent SMS to {}", toPhoneNumber);
-        } catch (Exception e) {
-            log.error("Failed to send SMS to {}: {}", toPhoneNumber, e.getMessage());
-            // In a real app, you might add more robust error handling here.
+            );
+            if (!statusCallbackUrl.isBlank()) {
+                creator.setStatusCallback(URI.create(statusCallbackUrl));
+            }
+            Message message = creator.create();
+            log.info("Successfully sent SMS to {} ({})", toPhoneNumber, message.getSid());
+            return message.getSid();
+        } catch (ApiException e) {
+            throw new SmsDeliveryException("Twilio rejected SMS to " + toPhoneNumber + " (HTTP " + e.getStatusCode()
+                    + ", code " + e.getCode() + "): " + e.getMessage(), isRetryable(e.getStatusCode()), e);
+        } catch (ApiConnectionException e) {
+            // Never reached Twilio, or the response was lost: try again later
+            throw new SmsDeliveryException("Could not reach Twilio to send SMS to " + toPhoneNumber + ": " + e.getMessage(), true, e);
         }
     }
+
+    /**
+     * Throttling (429) and server errors may go away; any other client error
+     * (invalid number, unsubscribed recipient, bad credentials) will not.
+     */
+    private static boolean isRetryable(Integer statusCode) {
+        return statusCode == null || statusCode == 429 || statusCode >= 500;
+    }
 }
@@ -0,0 +1,122 @@
+package com.usa.attendancesystem.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+/**
+ * Reads the first sheet of an .xlsx file with POI's event API: the sheet XML
+ * is parsed with SAX and handed over one row at a time, so memory use does
+ * not depend on the number of rows. The first row is taken as the header and
+ * each following row is passed on as a header-to-value map of the cells'
+ * displayed values.
+ */
+final class XlsxSheetReader {
+
+    @FunctionalInterface
+    interface RowHandler {
+
+        /**
+         * @param rowNumber the 1-based row number as shown in Excel
+         */
+        void row(int rowNumber, Map<String, String> values);
+    }
+
+    private XlsxSheetReader() {
+    }
+
+    static void readFirstSheet(File file, RowHandler handler) throws IOException {
+        // Opening from a file lets POI read zip entries on demand instead of buffering the whole package
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                throw new IllegalArgumentException("Excel file contains no sheets");
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(
+                        styles, null, sharedStrings, new RowCollector(handler), new DataFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Invalid Excel file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Turns the handler's cell callbacks into header-keyed rows. Cells that are
+     * absent from the XML (blank in Excel) come through as empty strings.
+     */
+    private static final class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final RowHandler handler;
+        private final List<String> headers = new ArrayList<>();
+        private Map<String, String> values;
+        private int currentColumn;
+        private boolean headerRow = true;
+
+        private RowCollector(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            values = new HashMap<>();
+            currentColumn = -1;
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            currentColumn = cellReference != null ? new CellReference(cellReference).getCol() : currentColumn + 1;
+            String value = formattedValue != null ? formattedValue.trim() : "";
+            if (headerRow) {
+                while (headers.size() < currentColumn) {
+                    headers.add("");
+                }
+                headers.add(value);
+            } else if (currentColumn < headers.size()) {
+                values.put(headers.get(currentColumn), value);
+            }
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (headerRow) {
+                headerRow = false;
+                return;
+            }
+            if (values.values().stream().allMatch(String::isEmpty)) {
+                return;
+            }
+            for (String header : headers) {
+                values.putIfAbsent(header, "");
+            }
+            handler.row(rowNum + 1, values);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.usa.attendancesystem.util;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.transaction.TransactionException;
+
+/**
+ * Tells a failure of the database itself from a failure of the rows being
+ * written, for background writers that retry the first and set aside the
+ * second.
+ */
+public final class DataAccessFailures {
+
+    private DataAccessFailures() {
+    }
+
+    /**
+     * True if writing the same rows again later may succeed: the database
+     * could not be reached, a transaction could not be started, or the error
+     * is one Spring classifies as transient (deadlocks, timeouts). Constraint
+     * violations, bad data and programming errors fail the same way every
+     * time.
+     */
+    public static boolean isTransient(RuntimeException failure) {
+        if (failure instanceof TransactionException || failure instanceof NonTransientDataAccessResourceException) {
+            return true;
+        }
+        return failure instanceof DataAccessException && !(failure instanceof NonTransientDataAccessException);
+    }
+}
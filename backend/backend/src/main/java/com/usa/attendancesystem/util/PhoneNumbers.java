@@ -0,0 +1,36 @@
+package com.usa.attendancesystem.util;
+
+import java.util.regex.Pattern;
+
+/**
+ * Phone number helpers shared by the SMS paths.
+ */
+public final class PhoneNumbers {
+
+    private static final Pattern NON_DIGITS = Pattern.compile("[^0-9]");
+    private static final String COUNTRY_CODE = "94";
+
+    private PhoneNumbers() {
+    }
+
+    /**
+     * Reduces a Sri Lankan number to its local form, 0 followed by nine
+     * digits, so the same phone always compares equal however it was typed:
+     * "077 123 4567", "077-1234567", "+94771234567" and "0094771234567" all
+     * become "0771234567". Numbers in no recognised form keep their digits
+     * only; null stays null.
+     */
+    public static String normalize(String phoneNumber) {
+        if (phoneNumber == null) {
+            return null;
+        }
+        String digits = NON_DIGITS.matcher(phoneNumber).replaceAll("");
+        if (digits.startsWith("00" + COUNTRY_CODE)) {
+            digits = digits.substring(2);
+        }
+        if (digits.startsWith(COUNTRY_CODE) && digits.length() == COUNTRY_CODE.length() + 9) {
+            return "0" + digits.substring(COUNTRY_CODE.length());
+        }
+        return digits.isEmpty() ? phoneNumber.trim() : digits;
+    }
+}
@@ -0,0 +1,6 @@
+-- V10: Remember which import job created each student, so a job's students can be listed page by page
+-- instead of being returned all at once in the import result.
+
+ALTER TABLE students ADD COLUMN import_job_id UUID REFERENCES student_import_jobs(id) ON DELETE SET NULL;
+
+CREATE INDEX idx_students_import_job ON students (import_job_id, student_id_code) WHERE import_job_id IS NOT NULL;
@@ -0,0 +1,7 @@
+-- V11: Import jobs record their mode (STANDARD, DRY_RUN or BULK_LOAD) instead of a dry-run flag.
+
+ALTER TABLE student_import_jobs ADD COLUMN mode VARCHAR(20) NOT NULL DEFAULT 'STANDARD';
+
+UPDATE student_import_jobs SET mode = 'DRY_RUN' WHERE dry_run;
+
+ALTER TABLE student_import_jobs DROP COLUMN dry_run;
@@ -0,0 +1,15 @@
+-- V12: Sequences for STU student ID codes and IDX index numbers, replacing the scan for the highest existing code.
+-- Each starts after the highest number already in use; codes that do not follow the pattern are ignored.
+
+CREATE SEQUENCE student_id_code_seq;
+CREATE SEQUENCE index_number_seq;
+
+SELECT setval('student_id_code_seq', GREATEST(COALESCE(MAX(CAST(SUBSTRING(student_id_code FROM 4) AS BIGINT)), 0), 1),
+              MAX(CAST(SUBSTRING(student_id_code FROM 4) AS BIGINT)) IS NOT NULL)
+FROM students
+WHERE student_id_code ~ '^STU[0-9]+$';
+
+SELECT setval('index_number_seq', GREATEST(COALESCE(MAX(CAST(SUBSTRING(index_number FROM 4) AS BIGINT)), 0), 1),
+              MAX(CAST(SUBSTRING(index_number FROM 4) AS BIGINT)) IS NOT NULL)
+FROM students
+WHERE index_number ~ '^IDX[0-9]+$';
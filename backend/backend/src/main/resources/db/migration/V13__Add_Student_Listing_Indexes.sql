@@ -0,0 +1,6 @@
+-- V13: Indexes for keyset-paginated student listings, one per sort order.
+-- Each matches the ORDER BY <column>, id of a page query and its (column, id) > cursor condition.
+
+CREATE INDEX idx_students_active_student_id_code ON students (is_active, student_id_code, id);
+CREATE INDEX idx_students_active_index_number ON students (is_active, index_number, id);
+CREATE INDEX idx_students_active_full_name ON students (is_active, full_name, id);
@@ -0,0 +1,16 @@
+-- V14: SMS that could not be delivered: a permanent provider error, or still failing after every retry.
+-- Admins can list them and replay them into the outbox; replayed rows are kept for reference.
+
+CREATE TABLE sms_dead_letters (
+    id BIGSERIAL PRIMARY KEY,
+    -- The outbox row that gave up, if the message went through the outbox
+    outbox_id BIGINT,
+    destination VARCHAR(20) NOT NULL,
+    message TEXT NOT NULL,
+    attempts INTEGER NOT NULL,
+    last_error VARCHAR(500),
+    failed_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    replayed_at TIMESTAMPTZ
+);
+
+CREATE INDEX idx_sms_dead_letters_open ON sms_dead_letters (failed_at, id) WHERE replayed_at IS NULL;
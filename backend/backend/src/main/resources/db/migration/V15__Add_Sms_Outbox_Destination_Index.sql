@@ -0,0 +1,4 @@
+-- V15: Outbox messages for the same phone are claimed together so they can be sent as one text.
+-- This index finds the pending, never-tried messages for a set of phones.
+
+CREATE INDEX idx_sms_outbox_held_destination ON sms_outbox (destination) WHERE status = 'PENDING' AND attempts = 0;
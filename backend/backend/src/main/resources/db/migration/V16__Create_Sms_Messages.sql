@@ -0,0 +1,23 @@
+-- V16: Delivery status of every SMS the provider accepted, keyed by the provider's message SID.
+-- Rows are written in batches by a background writer, from send results and from status callbacks,
+-- which may arrive in any order; status_rank keeps an older status from replacing a newer one.
+
+ALTER TABLE sms_outbox ADD COLUMN message_type VARCHAR(20);
+-- The student a message is about; null for broadcasts and for texts merged across siblings
+ALTER TABLE sms_outbox ADD COLUMN student_id UUID;
+
+CREATE TABLE sms_messages (
+    message_sid VARCHAR(64) PRIMARY KEY,
+    destination VARCHAR(20) NOT NULL,
+    -- No foreign key: a batch of status updates must never fail because a student was deleted
+    student_id UUID,
+    -- Null until the send is recorded, when a status callback arrives first
+    message_type VARCHAR(20),
+    status VARCHAR(20) NOT NULL,
+    status_rank SMALLINT NOT NULL,
+    error_code VARCHAR(10),
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    status_updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_sms_messages_student ON sms_messages (student_id, created_at DESC) WHERE student_id IS NOT NULL;
@@ -0,0 +1,7 @@
+-- V17: Several servers may run imports against one database. Each unfinished job records the server
+-- running it and when that server last reported it alive, so a restarting server only fails its own
+-- jobs and jobs whose server stopped reporting, not jobs another server is still working on.
+
+ALTER TABLE student_import_jobs ADD COLUMN owner_instance VARCHAR(100);
+-- Null for jobs created before this column existed, which are treated as abandoned
+ALTER TABLE student_import_jobs ADD COLUMN heartbeat_at TIMESTAMPTZ;
@@ -0,0 +1,6 @@
+-- V18: Dead letters keep what the outbox row knew about the message, so a replayed message is
+-- recorded with its type and student like the original.
+
+ALTER TABLE sms_dead_letters ADD COLUMN message_type VARCHAR(20);
+-- The student the message is about; null for broadcasts and for texts merged across siblings
+ALTER TABLE sms_dead_letters ADD COLUMN student_id UUID;
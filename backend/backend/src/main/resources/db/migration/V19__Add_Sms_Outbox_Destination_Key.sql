@@ -0,0 +1,11 @@
+-- V19: Messages are sent to the phone number exactly as it was stored, which may carry a country code.
+-- destination_key holds the normalized form used only to find messages for the same phone, so
+-- "+94771234567" and "0771234567" are merged while each keeps the number it was queued for.
+
+ALTER TABLE sms_outbox ADD COLUMN destination_key VARCHAR(20);
+
+-- Queued messages were stored normalized so far; null keys (replayed dead letters) are simply never merged
+UPDATE sms_outbox SET destination_key = destination WHERE status = 'PENDING';
+
+DROP INDEX idx_sms_outbox_held_destination;
+CREATE INDEX idx_sms_outbox_held_destination ON sms_outbox (destination_key) WHERE status = 'PENDING' AND attempts = 0;
@@ -0,0 +1,20 @@
+-- V3: Transactional outbox for parent SMS notifications.
+-- Rows are written in the same transaction as the change that triggers them
+-- and drained by a background dispatcher, so no request waits on the SMS provider.
+
+CREATE TABLE sms_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    destination VARCHAR(20) NOT NULL,
+    message TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING', -- 'PENDING', 'SENDING', 'SENT', 'FAILED'
+    attempts INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    available_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    claimed_at TIMESTAMPTZ,
+    sent_at TIMESTAMPTZ,
+    last_error VARCHAR(500)
+);
+
+-- The dispatcher only ever scans pending rows, so keep that index small.
+CREATE INDEX idx_sms_outbox_pending ON sms_outbox (available_at, id) WHERE status = 'PENDING';
+CREATE INDEX idx_sms_outbox_sending ON sms_outbox (claimed_at) WHERE status = 'SENDING';
@@ -0,0 +1,20 @@
+-- V4: One attendance mark per student, subject and day, enforced by the database.
+-- Marking becomes a single INSERT ... ON CONFLICT DO NOTHING instead of COUNT + INSERT.
+
+ALTER TABLE attendance_records ADD COLUMN attendance_date DATE;
+
+-- Existing marks were de-duplicated on UTC day boundaries
+UPDATE attendance_records SET attendance_date = (attendance_timestamp AT TIME ZONE 'UTC')::date;
+
+-- Drop duplicates that slipped through the old check-then-insert race, keeping the earliest mark
+DELETE FROM attendance_records ar
+USING attendance_records earlier
+WHERE ar.student_id = earlier.student_id
+  AND ar.subject_id = earlier.subject_id
+  AND ar.attendance_date = earlier.attendance_date
+  AND ar.id > earlier.id;
+
+ALTER TABLE attendance_records ALTER COLUMN attendance_date SET NOT NULL;
+
+CREATE UNIQUE INDEX uq_attendance_records_student_subject_date
+    ON attendance_records (student_id, subject_id, attendance_date);
@@ -0,0 +1,4 @@
+-- V5: Per-session write-behind marking for very large sessions (whole-batch exams).
+-- When enabled, check-ins are journaled locally and written to attendance_records in batches.
+
+ALTER TABLE attendance_sessions ADD COLUMN write_behind BOOLEAN NOT NULL DEFAULT FALSE;
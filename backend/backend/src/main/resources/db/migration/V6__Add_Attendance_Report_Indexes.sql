@@ -0,0 +1,8 @@
+-- V6: Indexes backing the projection queries of the attendance report.
+
+-- Present students for a subject on a day
+CREATE INDEX idx_attendance_records_subject_date ON attendance_records (subject_id, attendance_date);
+
+-- Students of a batch, and students taking a subject (the primary key only covers student_id first)
+CREATE INDEX idx_students_batch ON students (batch_id);
+CREATE INDEX idx_student_subjects_subject ON student_subjects (subject_id, student_id);
@@ -0,0 +1,34 @@
+-- V7: Per-day attendance counts for dashboards, kept up to date by the mark path
+-- and reconciled nightly against attendance_records.
+
+CREATE TABLE attendance_daily_summary (
+    summary_date DATE NOT NULL,
+    batch_id INTEGER NOT NULL REFERENCES batches(id),
+    subject_id INTEGER NOT NULL REFERENCES subjects(id),
+    present_count INTEGER NOT NULL DEFAULT 0,
+    enrolled_count INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (summary_date, batch_id, subject_id)
+);
+
+-- Trends for one batch/subject over a date range
+CREATE INDEX idx_attendance_daily_summary_batch_subject
+    ON attendance_daily_summary (batch_id, subject_id, summary_date);
+
+-- Backfill from existing sessions and marks; enrolment is taken as of today
+INSERT INTO attendance_daily_summary (summary_date, batch_id, subject_id, present_count, enrolled_count)
+SELECT k.summary_date, k.batch_id, k.subject_id,
+       COALESCE(p.present_count, 0),
+       (SELECT COUNT(*) FROM students e JOIN student_subjects es ON es.student_id = e.id
+        WHERE e.batch_id = k.batch_id AND es.subject_id = k.subject_id AND e.is_active = TRUE)
+FROM (
+    SELECT session_date AS summary_date, batch_id, subject_id FROM attendance_sessions
+    UNION
+    SELECT ar.attendance_date, s.batch_id, ar.subject_id
+    FROM attendance_records ar JOIN students s ON s.id = ar.student_id
+) k
+LEFT JOIN (
+    SELECT ar.attendance_date, s.batch_id, ar.subject_id, COUNT(*) AS present_count
+    FROM attendance_records ar JOIN students s ON s.id = ar.student_id
+    GROUP BY ar.attendance_date, s.batch_id, ar.subject_id
+) p ON p.attendance_date = k.summary_date AND p.batch_id = k.batch_id AND p.subject_id = k.subject_id;
@@ -0,0 +1,21 @@
+-- V8: Background student imports. A job row tracks each upload from queueing to its final result.
+
+CREATE TABLE student_import_jobs (
+    id UUID PRIMARY KEY,
+    file_name VARCHAR(255) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    rows_parsed INTEGER NOT NULL DEFAULT 0,
+    rows_imported INTEGER NOT NULL DEFAULT 0,
+    rows_failed INTEGER NOT NULL DEFAULT 0,
+    -- Final CsvImportResultDto as JSON, kept after the job finishes
+    result TEXT,
+    error_message VARCHAR(500),
+    created_by VARCHAR(50),
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    started_at TIMESTAMPTZ,
+    finished_at TIMESTAMPTZ
+);
+
+-- Jobs left unfinished by a restart are found on startup
+CREATE INDEX idx_student_import_jobs_unfinished ON student_import_jobs (status)
+    WHERE status IN ('QUEUED', 'RUNNING');
@@ -0,0 +1,3 @@
+-- V9: Validate-only student imports. A dry run parses, validates and checks for duplicates but writes no students.
+
+ALTER TABLE student_import_jobs ADD COLUMN dry_run BOOLEAN NOT NULL DEFAULT FALSE;
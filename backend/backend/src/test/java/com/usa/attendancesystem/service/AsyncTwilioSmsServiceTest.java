@@ -0,0 +1,162 @@
+package com.usa.attendancesystem.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.usa.attendancesystem.exception.SmsDeliveryException;
+
+/**
+ * Sends through a local stub of Twilio's Messages endpoint and checks the
+ * request, the returned SID, how failures are classified and that no more
+ * than the configured number of requests are open at once.
+ */
+class AsyncTwilioSmsServiceTest {
+
+	private static final String ACCOUNT_SID = "ACtest";
+	private static final String AUTH_TOKEN = "secret";
+	private static final String FROM = "+15005550006";
+
+	private HttpServer server;
+	private final ConcurrentLinkedQueue<Map<String, String>> requests = new ConcurrentLinkedQueue<>();
+	private final ConcurrentLinkedQueue<String> authorizations = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger sids = new AtomicInteger();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+	private volatile long latencyMs;
+
+	@BeforeEach
+	void startStubServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/2010-04-01/Accounts/" + ACCOUNT_SID + "/Messages.json", exchange -> {
+			int current = inFlight.incrementAndGet();
+			maxInFlight.accumulateAndGet(current, Math::max);
+			try {
+				Map<String, String> form = parseForm(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+				requests.add(form);
+				authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+				Thread.sleep(latencyMs);
+				switch (form.get("To")) {
+					case "0770000429" ->
+						respond(exchange, 429, "{\"code\":20429,\"message\":\"Too Many Requests\"}");
+					case "0770000400" ->
+						respond(exchange, 400, "{\"code\":21211,\"message\":\"Invalid 'To' Phone Number\"}");
+					default ->
+						respond(exchange, 201, "{\"sid\":\"SM" + sids.incrementAndGet() + "\",\"status\":\"queued\"}");
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				respond(exchange, 503, "{}");
+			} finally {
+				inFlight.decrementAndGet();
+			}
+		});
+		server.start();
+	}
+
+	@AfterEach
+	void stopStubServer() {
+		server.stop(0);
+	}
+
+	@Test
+	void postsTheMessageAndReturnsItsSid() {
+		AsyncTwilioSmsService smsService = smsService(4);
+
+		String sid = smsService.sendSmsAsync("0771234567", "Hello & welcome").join();
+
+		assertThat(sid).isEqualTo("SM1");
+		assertThat(requests).containsExactly(Map.of("To", "0771234567", "From", FROM, "Body", "Hello & welcome"));
+		assertThat(authorizations).containsExactly("Basic " + Base64.getEncoder()
+				.encodeToString((ACCOUNT_SID + ":" + AUTH_TOKEN).getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	void classifiesThrottlingAsRetryableAndBadNumbersAsPermanent() {
+		AsyncTwilioSmsService smsService = smsService(4);
+
+		assertThatThrownBy(() -> smsService.sendSms("0770000429", "Hello"))
+				.isInstanceOfSatisfying(SmsDeliveryException.class, e -> {
+					assertThat(e.isRetryable()).isTrue();
+					assertThat(e.getMessage()).contains("HTTP 429", "Too Many Requests");
+				});
+		assertThatThrownBy(() -> smsService.sendSmsAsync("0770000400", "Hello").join())
+				.isInstanceOf(CompletionException.class)
+				.cause()
+				.isInstanceOfSatisfying(SmsDeliveryException.class, e -> assertThat(e.isRetryable()).isFalse());
+	}
+
+	@Test
+	void reportsAnUnreachableProviderAsRetryable() {
+		int port = server.getAddress().getPort();
+		server.stop(0);
+		AsyncTwilioSmsService smsService = new AsyncTwilioSmsService(ACCOUNT_SID, AUTH_TOKEN, FROM, "",
+				"http://127.0.0.1:" + port, 4, 2000, new ObjectMapper());
+
+		assertThatThrownBy(() -> smsService.sendSms("0771234567", "Hello"))
+				.isInstanceOfSatisfying(SmsDeliveryException.class, e -> assertThat(e.isRetryable()).isTrue());
+	}
+
+	@Test
+	void keepsAtMostTheConfiguredNumberOfRequestsInFlight() {
+		latencyMs = 50;
+		AsyncTwilioSmsService smsService = smsService(3);
+
+		List<CompletableFuture<String>> sends = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			sends.add(smsService.sendSmsAsync(String.format("077%07d", i), "Hello"));
+		}
+		CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+
+		assertThat(sends).allSatisfy(send -> assertThat(send.join()).startsWith("SM"));
+		assertThat(requests).hasSize(30);
+		assertThat(maxInFlight.get()).isLessThanOrEqualTo(3);
+	}
+
+	private AsyncTwilioSmsService smsService(int maxInFlight) {
+		return new AsyncTwilioSmsService(ACCOUNT_SID, AUTH_TOKEN, FROM, "",
+				"http://127.0.0.1:" + server.getAddress().getPort(), maxInFlight, 5000, new ObjectMapper());
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private static Map<String, String> parseForm(String body) {
+		Map<String, String> form = new HashMap<>();
+		for (String pair : body.split("&")) {
+			int separator = pair.indexOf('=');
+			form.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+					URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+		}
+		return form;
+	}
+}
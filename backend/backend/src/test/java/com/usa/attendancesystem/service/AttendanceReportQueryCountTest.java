@@ -0,0 +1,102 @@
+package com.usa.attendancesystem.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.usa.attendancesystem.dto.AttendanceReportDto;
+import com.usa.attendancesystem.model.Batch;
+import com.usa.attendancesystem.model.Student;
+import com.usa.attendancesystem.model.Subject;
+import com.usa.attendancesystem.repository.AttendanceRecordRepository;
+import com.usa.attendancesystem.repository.BatchRepository;
+import com.usa.attendancesystem.repository.StudentRepository;
+import com.usa.attendancesystem.repository.SubjectRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Checks that the daily attendance report issues a fixed number of SQL
+ * statements however many students are in the class.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class AttendanceReportQueryCountTest {
+
+	@Autowired
+	private AttendanceService attendanceService;
+
+	@Autowired
+	private BatchRepository batchRepository;
+
+	@Autowired
+	private SubjectRepository subjectRepository;
+
+	@Autowired
+	private StudentRepository studentRepository;
+
+	@Autowired
+	private AttendanceRecordRepository attendanceRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void reportStatementCountDoesNotGrowWithClassSize() {
+		long small = statementsForReport(4);
+		long large = statementsForReport(60);
+
+		assertThat(large).isEqualTo(small);
+		assertThat(large).isEqualTo(2);
+	}
+
+	private long statementsForReport(int classSize) {
+		Batch batch = batchRepository.save(new Batch(9000 + classSize));
+		Subject subject = subjectRepository.save(new Subject("Report Test " + classSize));
+		LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+		for (int i = 0; i < classSize; i++) {
+			Student student = studentRepository.save(Student.builder()
+					.studentIdCode(String.format("RPT%02d-%03d", classSize, i))
+					.indexNumber(String.format("RP%02d%03d", classSize, i))
+					.fullName("Report Student " + i)
+					.parentPhone("+94770000000")
+					.batch(batch)
+					.subjects(new HashSet<>(Set.of(subject)))
+					.build());
+			if (i % 2 == 0) {
+				attendanceRepository.insertIfAbsent(student.getId(), subject.getId(), Instant.now(), today);
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		AttendanceReportDto report = attendanceService.getAttendanceReport(today, batch.getId(), subject.getId());
+
+		assertThat(report.presentStudents()).hasSize((classSize + 1) / 2);
+		assertThat(report.absentStudents()).hasSize(classSize / 2);
+		assertThat(report.absentStudents()).allSatisfy(student -> {
+			assertThat(student.batch().id()).isEqualTo(batch.getId());
+			assertThat(student.subjects()).extracting("name").containsExactly(subject.getName());
+		});
+		return statistics.getPrepareStatementCount();
+	}
+}
@@ -0,0 +1,195 @@
+package com.usa.attendancesystem.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.sun.net.httpserver.HttpServer;
+import com.usa.attendancesystem.dto.BroadcastJobDto;
+import com.usa.attendancesystem.exception.SmsDeliveryException;
+import com.usa.attendancesystem.model.BroadcastJobStatus;
+
+/**
+ * Sends broadcasts through a local stub SMS server that answers after a fixed
+ * latency, and checks the dispatcher's concurrency cap, rate limit and
+ * counts. The outbox that takes failed sends and the status store are
+ * mocked. The throughput run is not part of the normal build; run it with
+ * {@code mvn test -Dtest=BroadcastDispatcherTest -Dsms.benchmark=true}.
+ */
+class BroadcastDispatcherTest {
+
+	private static final String FAILING_PREFIX = "0700000";
+
+	private HttpServer server;
+	private final HttpClient client = HttpClient.newHttpClient();
+	private final SmsOutboxService outboxService = mock(SmsOutboxService.class);
+	private final SmsStatusService statusService = mock(SmsStatusService.class);
+	private final Set<String> received = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+	private volatile long latencyMs = 20;
+
+	@BeforeEach
+	void startStubServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/messages", exchange -> {
+			try {
+				String to = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+				Thread.sleep(latencyMs);
+				received.add(to);
+				exchange.sendResponseHeaders(to.startsWith(FAILING_PREFIX) ? 500 : 201, -1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				exchange.sendResponseHeaders(503, -1);
+			} finally {
+				exchange.close();
+			}
+		});
+		server.start();
+	}
+
+	@AfterEach
+	void stopStubServer() {
+		server.stop(0);
+	}
+
+	@Test
+	void sendsEveryMessageWithinTheConcurrencyCap() throws InterruptedException {
+		try (BroadcastDispatcher dispatcher = new BroadcastDispatcher(stubSmsService(), outboxService, statusService, 4, 0, 1, 60)) {
+			List<String> destinations = destinations(200);
+			destinations.set(10, FAILING_PREFIX + "10");
+			destinations.set(20, FAILING_PREFIX + "20");
+
+			when(outboxService.recordFailure(anyString(), anyString(), any())).thenReturn(true);
+
+			BroadcastJobDto job = awaitFinished(dispatcher, dispatcher.start(destinations, "Hello").id());
+
+			assertThat(job.status()).isEqualTo(BroadcastJobStatus.COMPLETED);
+			assertThat(job.totalMessages()).isEqualTo(200);
+			assertThat(job.sent()).isEqualTo(198);
+			assertThat(job.queuedForRetry()).isEqualTo(2);
+			assertThat(job.failed()).isZero();
+			assertThat(received).containsExactlyInAnyOrderElementsOf(destinations);
+			assertThat(maxInFlight.get()).isLessThanOrEqualTo(4);
+			verify(outboxService).recordFailure(eq(FAILING_PREFIX + "10"), eq("Hello"), any(SmsDeliveryException.class));
+			verify(outboxService).recordFailure(eq(FAILING_PREFIX + "20"), eq("Hello"), any(SmsDeliveryException.class));
+		}
+	}
+
+	@Test
+	void startsNoMoreMessagesPerSecondThanTheLimit() throws InterruptedException {
+		latencyMs = 0;
+		try (BroadcastDispatcher dispatcher = new BroadcastDispatcher(stubSmsService(), outboxService, statusService, 50, 40, 5, 60)) {
+			long start = System.nanoTime();
+			BroadcastJobDto job = awaitFinished(dispatcher, dispatcher.start(destinations(25), "Hello").id());
+			long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+			// A burst of 5, then the other 20 at 40 per second
+			assertThat(job.sent()).isEqualTo(25);
+			assertThat(elapsedMs).isGreaterThanOrEqualTo(450);
+		}
+	}
+
+	@Test
+	void finishesEmptyBroadcastsImmediately() {
+		try (BroadcastDispatcher dispatcher = new BroadcastDispatcher(stubSmsService(), outboxService, statusService, 4, 0, 1, 60)) {
+			BroadcastJobDto job = dispatcher.start(List.of(), "Hello");
+
+			assertThat(job.status()).isEqualTo(BroadcastJobStatus.COMPLETED);
+			assertThat(dispatcher.getJob(job.id())).contains(job);
+		}
+	}
+
+	@Test
+	@EnabledIfSystemProperty(named = "sms.benchmark", matches = "true")
+	void broadcastThroughputScalesWithConcurrency() throws InterruptedException {
+		latencyMs = 200;
+		for (int concurrency : new int[]{1, 8, 32, 128}) {
+			received.clear();
+			try (BroadcastDispatcher dispatcher = new BroadcastDispatcher(stubSmsService(), outboxService, statusService, concurrency, 0, 1, 60)) {
+				int messages = Math.min(1500, concurrency * 50);
+				long start = System.nanoTime();
+				BroadcastJobDto job = awaitFinished(dispatcher, dispatcher.start(destinations(messages), "Hello").id());
+				double seconds = (System.nanoTime() - start) / 1e9;
+
+				assertThat(job.sent()).isEqualTo(messages);
+				System.out.printf("concurrency %3d: %5d messages in %6.2f s = %7.1f messages/s%n",
+						concurrency, messages, seconds, messages / seconds);
+			}
+		}
+	}
+
+	/**
+	 * An SmsService that posts each message to the stub server, failing on
+	 * any non-2xx answer like a real provider client. Sends in flight are
+	 * counted here, around the call the dispatcher makes, rather than in the
+	 * server, which still counts a request while the client has already
+	 * moved on to the next.
+	 */
+	private SmsService stubSmsService() {
+		URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/messages");
+		return (toPhoneNumber, message) -> {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				HttpResponse<Void> response = client.send(
+						HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofString(toPhoneNumber)).build(),
+						HttpResponse.BodyHandlers.discarding());
+				if (response.statusCode() / 100 != 2) {
+					throw new SmsDeliveryException("Stub SMS server answered " + response.statusCode(),
+							response.statusCode() == 429 || response.statusCode() >= 500, null);
+				}
+			} catch (IOException e) {
+				throw new SmsDeliveryException(e.getMessage(), true, e);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SmsDeliveryException(e.getMessage(), true, e);
+			} finally {
+				inFlight.decrementAndGet();
+			}
+		};
+	}
+
+	private static BroadcastJobDto awaitFinished(BroadcastDispatcher dispatcher, UUID jobId) throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofMinutes(2).toNanos();
+		BroadcastJobDto job = dispatcher.getJob(jobId).orElseThrow();
+		while (job.status() == BroadcastJobStatus.RUNNING && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+			job = dispatcher.getJob(jobId).orElseThrow();
+		}
+		return job;
+	}
+
+	private static List<String> destinations(int count) {
+		List<String> destinations = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			destinations.add(String.format("077%07d", i));
+		}
+		return destinations;
+	}
+}
@@ -0,0 +1,149 @@
+package com.usa.attendancesystem.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.usa.attendancesystem.model.Batch;
+import com.usa.attendancesystem.model.Subject;
+
+/**
+ * Measures import row validation throughput at increasing parallelism. Not
+ * part of the normal build; run it with
+ * {@code mvn test -Dtest=ParallelRowValidatorBenchmarkTest -Dimport.benchmark=true}.
+ */
+class ParallelRowValidatorBenchmarkTest {
+
+	private static final int ROWS = 200_000;
+	private static final int CHUNK_SIZE = 1000;
+	private static final int ROUNDS = 5;
+	private static final List<String> SUBJECTS = List.of("Mathematics", "Physics", "Chemistry", "Biology", "ICT");
+
+	@Test
+	void keepsRowOrderAndRejectsInvalidRows() {
+		StudentRowValidator validator = new StudentRowValidator(lookups(), "CSV record");
+		List<Map<String, String>> rows = rows(CHUNK_SIZE);
+
+		try (ParallelRowValidator parallelValidator = new ParallelRowValidator(4)) {
+			List<ParallelRowValidator.Outcome> outcomes = parallelValidator.validate(rows, validator).join();
+
+			assertThat(outcomes).hasSize(rows.size());
+			for (int i = 0; i < rows.size(); i++) {
+				ParallelRowValidator.Outcome outcome = outcomes.get(i);
+				if (isInvalid(i)) {
+					assertThat(outcome.isValid()).isFalse();
+					assertThat(outcome.error()).contains("Invalid parent phone number format");
+				} else {
+					assertThat(outcome.student().fullName()).isEqualTo(rows.get(i).get("Full Name"));
+				}
+			}
+		}
+	}
+
+	@Test
+	@EnabledIfSystemProperty(named = "import.benchmark", matches = "true")
+	void validationThroughputScalesWithCores() {
+		StudentRowValidator validator = new StudentRowValidator(lookups(), "CSV record");
+		List<List<Map<String, String>>> chunks = new ArrayList<>();
+		List<Map<String, String>> rows = rows(ROWS);
+		for (int start = 0; start < rows.size(); start += CHUNK_SIZE) {
+			chunks.add(rows.subList(start, Math.min(start + CHUNK_SIZE, rows.size())));
+		}
+
+		System.out.printf("Validating %d rows in chunks of %d on %d available cores%n",
+				ROWS, CHUNK_SIZE, Runtime.getRuntime().availableProcessors());
+		System.out.printf("%8s %14s %9s%n", "threads", "rows/s", "speedup");
+
+		double baseline = 0;
+		for (int threads : threadCounts()) {
+			try (ParallelRowValidator parallelValidator = new ParallelRowValidator(threads)) {
+				validateAll(parallelValidator, validator, chunks); // warm-up
+
+				long best = Long.MAX_VALUE;
+				for (int round = 0; round < ROUNDS; round++) {
+					long started = System.nanoTime();
+					int valid = validateAll(parallelValidator, validator, chunks);
+					best = Math.min(best, System.nanoTime() - started);
+					assertThat(valid).isEqualTo(ROWS - ROWS / 10);
+				}
+
+				double rowsPerSecond = ROWS / (best / 1_000_000_000.0);
+				if (baseline == 0) {
+					baseline = rowsPerSecond;
+				}
+				System.out.printf("%8d %14.0f %8.2fx%n", threads, rowsPerSecond, rowsPerSecond / baseline);
+			}
+		}
+	}
+
+	private static int validateAll(ParallelRowValidator parallelValidator, StudentRowValidator validator,
+			List<List<Map<String, String>>> chunks) {
+		int valid = 0;
+		for (List<Map<String, String>> chunk : chunks) {
+			for (ParallelRowValidator.Outcome outcome : parallelValidator.validate(chunk, validator).join()) {
+				if (outcome.isValid()) {
+					valid++;
+				}
+			}
+		}
+		return valid;
+	}
+
+	private static Set<Integer> threadCounts() {
+		int cores = Runtime.getRuntime().availableProcessors();
+		Set<Integer> counts = new LinkedHashSet<>();
+		for (int threads = 1; threads < cores; threads *= 2) {
+			counts.add(threads);
+		}
+		counts.add(cores);
+		return counts;
+	}
+
+	private static ImportLookups lookups() {
+		List<Batch> batches = new ArrayList<>();
+		for (int year = 2020; year <= 2026; year++) {
+			Batch batch = new Batch(year);
+			batch.setId(year - 2019);
+			batches.add(batch);
+		}
+		List<Subject> subjects = new ArrayList<>();
+		for (int i = 0; i < SUBJECTS.size(); i++) {
+			Subject subject = new Subject(SUBJECTS.get(i));
+			subject.setId(i + 1);
+			subjects.add(subject);
+		}
+		return ImportLookups.of(batches, subjects);
+	}
+
+	/**
+	 * Rows shaped like a real upload: formatted phone numbers that need
+	 * normalizing, and every tenth row with an invalid parent phone.
+	 */
+	private static List<Map<String, String>> rows(int count) {
+		List<Map<String, String>> rows = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			Map<String, String> row = new HashMap<>();
+			row.put("Full Name", "Student " + i);
+			row.put("Parent Phone", isInvalid(i) ? "12345" : String.format("077-%03d-%04d", i % 1000, i % 10000));
+			row.put("Student Phone", i % 3 == 0 ? "" : String.format("(071) %03d %04d", i % 1000, i % 10000));
+			row.put("Batch Year", String.valueOf(2020 + i % 7));
+			for (int s = 0; s < SUBJECTS.size(); s++) {
+				row.put(SUBJECTS.get(s), (i + s) % 2 == 0 ? "1" : "0");
+			}
+			rows.add(row);
+		}
+		return rows;
+	}
+
+	private static boolean isInvalid(int row) {
+		return row % 10 == 0;
+	}
+}
@@ -0,0 +1,85 @@
+package com.usa.attendancesystem.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.usa.attendancesystem.model.SmsMessageType;
+import com.usa.attendancesystem.model.SmsOutboxMessage;
+import com.usa.attendancesystem.repository.SmsDeadLetterRepository;
+import com.usa.attendancesystem.repository.SmsOutboxJdbcRepository;
+import com.usa.attendancesystem.repository.SmsOutboxRepository;
+
+/**
+ * Checks that messages for the same phone are merged by normalized number
+ * while each text still goes to the number as it was stored, country code
+ * included.
+ */
+class SmsOutboxServiceTest {
+
+	private final SmsOutboxRepository outboxRepository = mock(SmsOutboxRepository.class);
+	private final SmsOutboxJdbcRepository outboxJdbcRepository = mock(SmsOutboxJdbcRepository.class);
+	private final SmsOutboxService outboxService = new SmsOutboxService(outboxRepository, outboxJdbcRepository,
+			mock(SmsDeadLetterRepository.class), mock(SmsRetryPolicy.class));
+
+	@BeforeEach
+	void configure() {
+		ReflectionTestUtils.setField(outboxService, "holdSeconds", 5L);
+		ReflectionTestUtils.setField(outboxService, "maxCoalescedLength", 480);
+	}
+
+	@Test
+	void queuesAnInternationalNumberAsStored() {
+		outboxService.enqueue("+94771234567", "Checked in", SmsMessageType.ATTENDANCE, UUID.randomUUID());
+
+		ArgumentCaptor<SmsOutboxMessage> saved = ArgumentCaptor.forClass(SmsOutboxMessage.class);
+		verify(outboxRepository).save(saved.capture());
+		assertThat(saved.getValue().getDestination()).isEqualTo("+94771234567");
+		assertThat(saved.getValue().getDestinationKey()).isEqualTo("0771234567");
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void mergesTheSamePhoneTypedTwoWaysAndSendsToTheFirstNumberAsStored() {
+		outboxService.enqueueAll(List.of(
+				new SmsOutboxMessage("+94771234567", "Amal is overdue", SmsMessageType.FEE_REMINDER, UUID.randomUUID()),
+				new SmsOutboxMessage("077 123 4567", "Nimal is overdue", SmsMessageType.FEE_REMINDER, UUID.randomUUID()),
+				new SmsOutboxMessage("0779999999", "Kamal is overdue", SmsMessageType.FEE_REMINDER, UUID.randomUUID())));
+
+		ArgumentCaptor<List<SmsOutboxMessage>> inserted = ArgumentCaptor.forClass(List.class);
+		verify(outboxJdbcRepository).insertAll(inserted.capture());
+		assertThat(inserted.getValue())
+				.extracting(SmsOutboxMessage::getDestination)
+				.containsExactly("+94771234567", "0779999999");
+		assertThat(inserted.getValue().get(0).getMessage()).contains("Amal", "Nimal");
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void claimsHeldMessagesByNormalizedNumber() {
+		SmsOutboxMessage due = new SmsOutboxMessage("+94771234567", "Checked in", SmsMessageType.ATTENDANCE, null);
+		due.setId(1L);
+		when(outboxRepository.findDispatchableForUpdate(any(), anyInt())).thenReturn(List.of(due));
+		when(outboxRepository.findHeldForUpdate(anyCollection(), anyCollection())).thenReturn(List.of());
+
+		List<SmsOutboxMessage> claimed = outboxService.claimBatch(10);
+
+		ArgumentCaptor<Collection<String>> keys = ArgumentCaptor.forClass(Collection.class);
+		verify(outboxRepository).findHeldForUpdate(keys.capture(), anyCollection());
+		assertThat(keys.getValue()).containsExactly("0771234567");
+		assertThat(claimed).extracting(SmsOutboxMessage::getDestination).containsExactly("+94771234567");
+	}
+}
@@ -0,0 +1,130 @@
+package com.usa.attendancesystem.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.usa.attendancesystem.dto.CsvImportResultDto;
+import com.usa.attendancesystem.model.Batch;
+import com.usa.attendancesystem.model.Student;
+import com.usa.attendancesystem.model.StudentImportJob;
+import com.usa.attendancesystem.model.StudentImportMode;
+import com.usa.attendancesystem.model.Subject;
+import com.usa.attendancesystem.repository.BatchRepository;
+import com.usa.attendancesystem.repository.StudentImportJobRepository;
+import com.usa.attendancesystem.repository.StudentRepository;
+import com.usa.attendancesystem.repository.SubjectRepository;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Runs the same file through a standard import and a COPY bulk load against
+ * PostgreSQL and checks that both accept, reject and number the rows the same
+ * way. Everything is rolled back afterwards.
+ */
+@SpringBootTest
+@Transactional
+class StudentBulkLoadTest {
+
+	@Autowired
+	private CsvImportService csvImportService;
+
+	@Autowired
+	private BatchRepository batchRepository;
+
+	@Autowired
+	private SubjectRepository subjectRepository;
+
+	@Autowired
+	private StudentRepository studentRepository;
+
+	@Autowired
+	private StudentImportJobRepository jobRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@TempDir
+	private Path tempDir;
+
+	@ParameterizedTest
+	@EnumSource(value = StudentImportMode.class, names = {"STANDARD", "BULK_LOAD"})
+	void importsValidRowsAndRejectsDuplicates(StudentImportMode mode) throws IOException {
+		Batch batch = batchRepository.save(new Batch(9101));
+		Subject maths = subjectRepository.save(new Subject("Bulk Load Maths"));
+		subjectRepository.save(new Subject("Bulk Load Physics"));
+		studentRepository.save(Student.builder()
+				.studentIdCode("BLK-EXISTING")
+				.indexNumber("BLKEX")
+				.fullName("Existing Student")
+				.parentPhone("0771112233")
+				.batch(batch)
+				.subjects(new HashSet<>(Set.of(maths)))
+				.build());
+		entityManager.flush();
+
+		Path file = tempDir.resolve("students.csv");
+		Files.writeString(file, String.join("\n",
+				"Full Name,Parent Phone,Student Phone,Batch Year,Bulk Load Maths,Bulk Load Physics",
+				"Ada Lovelace,0771234501,,9101,1,0",
+				"Alan Turing,077-123-4502,0712345678,9101,1,1",
+				"\" existing  STUDENT\",0771112233,,9101,0,1",
+				"Ada Lovelace,0771234501,,9101,0,1",
+				"\"Grace \"\"Amazing\"\" Hopper\",0771234503,,9101,1,0",
+				"Bad Phone,12345,,9101,1,0",
+				""));
+
+		StudentImportJob job = jobRepository.save(new StudentImportJob("students.csv", mode, "test", "test"));
+		StudentImportProgress progress = new StudentImportProgress(100, new ImportErrorReport(tempDir.resolve("errors.csv")));
+
+		CsvImportResultDto result = csvImportService.importStudents(file, "students.csv", job.getId(), progress, mode);
+
+		assertThat(result.totalRows()).isEqualTo(6);
+		assertThat(result.successfulImports()).isEqualTo(3);
+		assertThat(progress.rowsFailed()).isEqualTo(3);
+		assertThat(result.errors()).containsExactly(
+				"Row 4: Duplicate student: same full name and parent phone as existing student BLK-EXISTING",
+				"Row 5: Duplicate student: same full name and parent phone as row 2",
+				"Row 7: Invalid parent phone number format. Please use Sri Lankan format (e.g., 0771234567)");
+
+		List<Map<String, Object>> imported = jdbcTemplate.queryForList(
+				"SELECT id, student_id_code, index_number, full_name, parent_phone, student_phone, batch_id, is_active "
+				+ "FROM students WHERE import_job_id = ? ORDER BY full_name", job.getId());
+		assertThat(imported).extracting(row -> row.get("full_name")).containsExactly("Ada Lovelace", "Alan Turing", "Grace \"Amazing\" Hopper");
+		assertThat(imported).extracting(row -> row.get("parent_phone")).containsExactly("0771234501", "0771234502", "0771234503");
+		assertThat(imported).extracting(row -> row.get("student_phone")).containsExactly(null, "0712345678", null);
+		assertThat(imported).allSatisfy(row -> {
+			assertThat(row.get("batch_id")).isEqualTo(batch.getId());
+			assertThat(row.get("is_active")).isEqualTo(true);
+		});
+
+		// Codes come from the same allocator in both modes: consecutive, in file order
+		long firstStudentNumber = Long.parseLong(((String) imported.get(0).get("student_id_code")).substring(3));
+		long firstIndexNumber = Long.parseLong(((String) imported.get(0).get("index_number")).substring(3));
+		assertThat(imported.get(1).get("student_id_code")).isEqualTo(String.format("STU%03d", firstStudentNumber + 1));
+		assertThat(imported.get(1).get("index_number")).isEqualTo(String.format("IDX%03d", firstIndexNumber + 1));
+		assertThat(imported.get(2).get("student_id_code")).isEqualTo(String.format("STU%03d", firstStudentNumber + 2));
+
+		Integer enrolments = jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM student_subjects ss JOIN students s ON s.id = ss.student_id WHERE s.import_job_id = ?",
+				Integer.class, job.getId());
+		assertThat(enrolments).isEqualTo(4);
+	}
+}